@@ -0,0 +1,71 @@
+package frc.robot.bench;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Timing shared by the benchmarks. Every path being compared gets warmed up together before any
+ * of them is measured so the JIT has settled, then each is timed on its own along with what the
+ * benchmark thread allocated. Rounds feed their answers to consume so none of the work can be
+ * optimized away.
+ */
+public final class BenchmarkHarness {
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int ROUNDS = 500;
+
+    private static double sink = 0.0;
+
+    public static class Result {
+        public final double nanosPerOp;
+        public final double bytesPerOp;
+
+        private Result(double nanosPerOp, double bytesPerOp) {
+            this.nanosPerOp = nanosPerOp;
+            this.bytesPerOp = bytesPerOp;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.1f ns/op %.1f B/op", nanosPerOp, bytesPerOp);
+        }
+    }
+
+    private BenchmarkHarness() {}
+
+    public static void warmUp(Runnable... rounds) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            for (Runnable round : rounds) {
+                round.run();
+            }
+        }
+    }
+
+    // opsPerRound is how many calls one round makes, results are per call
+    public static Result measure(Runnable round, int opsPerRound) {
+        long startBytes = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            round.run();
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = allocatedBytes() - startBytes;
+        double ops = (double) ROUNDS * opsPerRound;
+        return new Result(nanos / ops, bytes / ops);
+    }
+
+    public static void consume(double value) {
+        sink += value;
+    }
+
+    // printed once at the end so the sink is actually read
+    static void printSink() {
+        System.err.println("(ignore) " + sink);
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,49 @@
+package frc.robot.bench;
+
+import frc.robot.subsystems.Shooter.FlywheelControlBenchmark;
+import frc.robot.subsystems.Shooter.ShotLookupBenchmark;
+import frc.robot.subsystems.Swerve.KinematicsBenchmark;
+import frc.robot.util.Localization.VisionStdDevBenchmark;
+
+/**
+ * Entry point for the offline benchmarks, which live in the bench source set and never ship in
+ * the robot jar. Run with ./gradlew bench -Pbench=(name), plus -PbenchArgs=(path) for vision:
+ *  - shot: times the shot grid against the shooter tree maps
+ *  - flywheel: simulates the flywheel controllers through a shot
+ *  - kinematics: times the closed form swerve kinematics against WPILib's
+ *  - vision (path to .wpilog): compares the vision std dev models on the log's frames
+ */
+public final class Benchmarks {
+    private Benchmarks() {}
+
+    public static void main(String... args) {
+        String name = args.length > 0 ? args[0] : "";
+        int status = 0;
+        switch (name) {
+            case "shot":
+                ShotLookupBenchmark.run();
+                break;
+            case "flywheel":
+                FlywheelControlBenchmark.run();
+                break;
+            case "kinematics":
+                KinematicsBenchmark.run();
+                break;
+            case "vision":
+                if (args.length < 2) {
+                    System.err.println("vision needs a .wpilog path, -PbenchArgs=(path)");
+                    status = 1;
+                } else {
+                    VisionStdDevBenchmark.run(args[1]);
+                }
+                break;
+            default:
+                System.err.println("Unknown benchmark '" + name + "', pick one of shot, flywheel, kinematics, vision");
+                status = 1;
+                break;
+        }
+        BenchmarkHarness.printSink();
+        // NetworkTables and the log writer leave threads running
+        System.exit(status);
+    }
+}
@@ -0,0 +1,166 @@
+package frc.robot.subsystems.Shooter;
+
+import java.util.Random;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.controller.BangBangController;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.system.plant.LinearSystemId;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.simulation.FlywheelSim;
+import frc.robot.util.STSmaxConfig;
+import frc.robot.util.SmaxProfiles.FlywheelStateSpaceController;
+
+/**
+ * Spins a simulated shooter flywheel up, fires a note through it and lets it recover, once with
+ * the bang bang law the shooter used to run and once with the state space loop. The sim
+ * steps at 1kHz with a sagging battery, noisy delayed SparkMax velocity that only updates at the
+ * status frame rate, and a wheel 20% heavier than the model the controllers were given. Every
+ * controller runs at both encoder delays, the SparkMax default window and the shorter one the
+ * state space flywheel configures, so the sensor and the control law can be told apart.
+ *
+ * ./gradlew bench -Pbench=flywheel
+ */
+public class FlywheelControlBenchmark {
+    private static final double SIM_DT_S = 0.001;
+    private static final double SETPOINT_RPM = 5300.0;
+    private static final double SHOT_TIME_S = 2.0;
+    private static final double END_TIME_S = 4.0;
+    private static final double SHOT_SPEED_RETAINED = 0.85; // fraction of wheel speed left after the note goes through
+    private static final double SHOT_LOAD_TIME_S = 0.5; // drivetrain accelerating while shooting
+
+    private static final double BATTERY_VOLTS = 12.4;
+    private static final double BATTERY_RESISTANCE_OHMS = 0.02;
+    private static final double OTHER_LOAD_AMPS = 20.0;
+    private static final double SHOT_LOAD_AMPS = 120.0;
+
+    private static final double STATUS_FRAME_S = 0.01; // kFlywheel status 1
+    private static final double[] ENCODER_DELAYS_S = {
+        0.03, // SparkMax default 32ms window
+        FlywheelStateSpaceController.MEASUREMENT_DELAY_S // SteelTalonsSparkMaxStateSpaceFlywheel's window
+    };
+    private static final double NOISE_RPM = 5.0;
+    private static final double PLANT_MISMATCH = 1.2;
+
+    private interface Controller {
+        double periodS();
+
+        double calculate(double measuredRPM, double busVoltage);
+    }
+
+    private static class Result {
+        double spinUpS = Double.NaN;
+        double recoveryS = Double.NaN;
+        double dipRPM = 0.0;
+        double overshootRPM = 0.0;
+        double minBusVoltage = BATTERY_VOLTS;
+    }
+
+    public static void run() {
+        ShooterConstants.configureShooter();
+        STSmaxConfig config = ShooterConstants.shooterLeftFlywheelConfig;
+
+        for (double delayS : ENCODER_DELAYS_S) {
+            String delay = String.format("%.0fms encoder delay", delayS * 1000.0);
+            BangBangController bangBang = new BangBangController(ShooterConstants.FLYWHEEL_TOLERANCE_RPM);
+            report("Bang bang (50Hz), " + delay, simulate(config, delayS, new Controller() {
+                public double periodS() {
+                    return 0.02;
+                }
+
+                public double calculate(double measuredRPM, double busVoltage) {
+                    // the old bang bang flywheel wrapper's law, bang bang at 12V on top of 95% kFF
+                    return bangBang.calculate(measuredRPM, SETPOINT_RPM) * 12 + config.kFF * SETPOINT_RPM * 12 * 0.95;
+                }
+            }));
+
+            for (double periodS : new double[] {0.02, config.notifierPeriodS}) {
+                FlywheelStateSpaceController stateSpace = new FlywheelStateSpaceController(config.kV, config.kA, periodS);
+                report(String.format("State space (%.0fHz), %s", 1.0 / periodS, delay), simulate(config, delayS, new Controller() {
+                    public double periodS() {
+                        return periodS;
+                    }
+
+                    public double calculate(double measuredRPM, double busVoltage) {
+                        return stateSpace.calculate(measuredRPM, SETPOINT_RPM, busVoltage);
+                    }
+                }));
+            }
+        }
+    }
+
+    private static Result simulate(STSmaxConfig config, double encoderDelayS, Controller controller) {
+        // the controllers work in RPM, the sim in rad/s
+        double radPerSecPerRPM = Units.rotationsPerMinuteToRadiansPerSecond(1.0);
+        FlywheelSim sim = new FlywheelSim(
+            LinearSystemId.identifyVelocitySystem(config.kV / radPerSecPerRPM, config.kA * PLANT_MISMATCH / radPerSecPerRPM),
+            DCMotor.getNEO(1), 1.0
+        );
+        Random noise = new Random(254);
+        int steps = (int) Math.round(END_TIME_S / SIM_DT_S);
+        int delaySteps = (int) Math.round(encoderDelayS / SIM_DT_S);
+        int frameSteps = (int) Math.round(STATUS_FRAME_S / SIM_DT_S);
+        int controlSteps = (int) Math.round(controller.periodS() / SIM_DT_S);
+        int shotStep = (int) Math.round(SHOT_TIME_S / SIM_DT_S);
+        double[] history = new double[steps + 1];
+
+        Result result = new Result();
+        double measured = 0.0;
+        double commanded = 0.0;
+        double busVoltage = BATTERY_VOLTS;
+        int inToleranceSince = -1;
+        for (int k = 0; k <= steps; k++) {
+            double velocity = sim.getAngularVelocityRPM();
+            history[k] = velocity;
+            if (k % frameSteps == 0) {
+                measured = history[Math.max(k - delaySteps, 0)] + noise.nextGaussian() * NOISE_RPM;
+            }
+            if (k % controlSteps == 0) {
+                commanded = controller.calculate(measured, busVoltage);
+            }
+
+            // tolerance windows restart at the shot, a window still open when a phase ends counts
+            if (k == shotStep) {
+                result.spinUpS = inToleranceSince >= 0 ? inToleranceSince * SIM_DT_S : Double.NaN;
+                inToleranceSince = -1;
+                sim.setState(VecBuilder.fill(sim.getAngularVelocityRadPerSec() * SHOT_SPEED_RETAINED));
+                velocity = sim.getAngularVelocityRPM();
+            }
+            if (Math.abs(SETPOINT_RPM - velocity) < ShooterConstants.FLYWHEEL_TOLERANCE_RPM) {
+                if (inToleranceSince < 0) {
+                    inToleranceSince = k;
+                }
+            } else {
+                inToleranceSince = -1;
+            }
+            if (k < shotStep) {
+                result.overshootRPM = Math.max(result.overshootRPM, velocity - SETPOINT_RPM);
+            } else {
+                result.dipRPM = Math.max(result.dipRPM, SETPOINT_RPM - velocity);
+            }
+
+            // the SparkMax can't put out more than the bus, and the wheel's own draw sags the bus
+            double otherLoad = k >= shotStep && k < shotStep + SHOT_LOAD_TIME_S / SIM_DT_S ? SHOT_LOAD_AMPS : OTHER_LOAD_AMPS;
+            double applied = MathUtil.clamp(commanded, -busVoltage, busVoltage);
+            sim.setInputVoltage(applied);
+            sim.update(SIM_DT_S);
+            busVoltage = BATTERY_VOLTS - (Math.abs(sim.getCurrentDrawAmps()) + otherLoad) * BATTERY_RESISTANCE_OHMS;
+            result.minBusVoltage = Math.min(result.minBusVoltage, busVoltage);
+        }
+        result.recoveryS = inToleranceSince >= 0 ? (inToleranceSince - shotStep) * SIM_DT_S : Double.NaN;
+        return result;
+    }
+
+    private static void report(String name, Result result) {
+        System.err.println(String.format(
+            "%s: within %.0f RPM after %s, %.0f RPM overshoot, %.0f RPM dip recovered in %s, bus min %.2fV",
+            name, ShooterConstants.FLYWHEEL_TOLERANCE_RPM, seconds(result.spinUpS), result.overshootRPM,
+            result.dipRPM, seconds(result.recoveryS), result.minBusVoltage
+        ));
+    }
+
+    private static String seconds(double s) {
+        return Double.isNaN(s) ? "never" : String.format("%.3fs", s);
+    }
+}
@@ -0,0 +1,110 @@
+package frc.robot.subsystems.Shooter;
+
+import java.util.Random;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Rotation2d;
+import frc.robot.bench.BenchmarkHarness;
+import frc.robot.util.MiscUtil;
+
+/**
+ * Times the shot lookup TestShooterRanging used to do through the tree maps against the
+ * precomputed field grid on the same random poses, and reports how far apart their answers are.
+ *
+ * ./gradlew bench -Pbench=shot
+ */
+public class ShotLookupBenchmark {
+    private static final int POSES = 4096;
+    private static final double MAX_SHOT_DISTANCE_M = 7.0;
+    private static final double MAX_PERP_SPEED = 4.0;
+
+    private static final double[] xs = new double[POSES];
+    private static final double[] ys = new double[POSES];
+    private static final double[] perpSpeeds = new double[POSES];
+
+    public static void run() {
+        ShooterConstants.targetMap();
+        ShooterConstants.targetOffsetMap();
+        ShooterConstants.timeOfFlightMap();
+        ShooterConstants.shotGrids();
+
+        Random random = new Random(2024);
+        for (int i = 0; i < POSES; i++) {
+            xs[i] = random.nextDouble() * MiscUtil.fieldWidth;
+            ys[i] = random.nextDouble() * MiscUtil.fieldHeight;
+            perpSpeeds[i] = (random.nextDouble() * 2 - 1) * MAX_PERP_SPEED;
+        }
+
+        for (boolean blue : new boolean[] {true, false}) {
+            ShootingSolutionGrid grid = ShooterConstants.shotGrid(blue);
+            ShotSolution solution = new ShotSolution();
+            report(blue ? "Blue" : "Red", grid, solution);
+        }
+    }
+
+    private static void report(String alliance, ShootingSolutionGrid grid, ShotSolution solution) {
+        Runnable treeMap = () -> treeMapRound(grid);
+        Runnable gridLookup = () -> gridRound(grid, solution);
+        BenchmarkHarness.warmUp(treeMap, gridLookup);
+        BenchmarkHarness.Result treeResult = BenchmarkHarness.measure(treeMap, POSES);
+        BenchmarkHarness.Result gridResult = BenchmarkHarness.measure(gridLookup, POSES);
+        System.err.println(alliance + ": tree maps " + treeResult + ", grid " + gridResult);
+        reportError(alliance, grid, solution);
+    }
+
+    private static void treeMapRound(ShootingSolutionGrid grid) {
+        for (int i = 0; i < POSES; i++) {
+            double dx = xs[i] - grid.getSpeakerX();
+            double dy = ys[i] - grid.getSpeakerY();
+            double distance = Math.hypot(dx, dy);
+            Rotation2d translationAngle = Rotation2d.fromRadians(Math.atan2(dy, dx));
+            ShootingConfiguration config = treeMapLookup(distance, translationAngle, perpSpeeds[i]);
+            BenchmarkHarness.consume(config.getPivotAngle().getRadians() + config.getLeftSpeed() + translationAngle.getRadians());
+        }
+    }
+
+    private static void gridRound(ShootingSolutionGrid grid, ShotSolution solution) {
+        for (int i = 0; i < POSES; i++) {
+            grid.sample(xs[i], ys[i], solution);
+            BenchmarkHarness.consume(solution.pivotRad + grid.offsetRad(perpSpeeds[i]) + solution.leftRPM + solution.headingRad);
+        }
+    }
+
+    // What TestShooterRanging did every loop before the grid
+    private static ShootingConfiguration treeMapLookup(double distance, Rotation2d translationAngle, double perpSpeed) {
+        return ShooterConstants.SHOOTER_PIVOT_TARGET_MAP.get(distance).adjustBy(
+            Rotation2d.fromDegrees(ShooterConstants.SHOOTER_OTF_OFFSET_MAP.get(perpSpeed)).
+            plus(Rotation2d.fromDegrees(Math.abs(translationAngle.getDegrees()) * (4.0 / 60.0) * 0.2 * (5 - distance))),
+            0.0,
+            0.0
+        );
+    }
+
+    private static void reportError(String alliance, ShootingSolutionGrid grid, ShotSolution solution) {
+        double maxPivotDeg = 0.0;
+        double maxRPM = 0.0;
+        double maxHeadingDeg = 0.0;
+        for (int i = 0; i < POSES; i++) {
+            double dx = xs[i] - grid.getSpeakerX();
+            double dy = ys[i] - grid.getSpeakerY();
+            double distance = Math.hypot(dx, dy);
+            if (distance > MAX_SHOT_DISTANCE_M) {
+                continue;
+            }
+            double translationAngleRad = Math.atan2(dy, dx);
+            ShootingConfiguration expected = treeMapLookup(distance, Rotation2d.fromRadians(translationAngleRad), perpSpeeds[i]);
+            grid.sample(xs[i], ys[i], solution);
+
+            maxPivotDeg = Math.max(maxPivotDeg, Math.abs(Math.toDegrees(solution.pivotRad + grid.offsetRad(perpSpeeds[i])) - expected.getPivotAngle().getDegrees()));
+            maxRPM = Math.max(maxRPM, Math.max(Math.abs(solution.leftRPM - expected.getLeftSpeed()), Math.abs(solution.rightRPM - expected.getRightSpeed())));
+            // heading only moves quickly in the cells right around the speaker
+            if (distance > 1.0) {
+                maxHeadingDeg = Math.max(maxHeadingDeg, Math.abs(Math.toDegrees(MathUtil.angleModulus(solution.headingRad - translationAngleRad))));
+            }
+        }
+        System.err.println(String.format(
+            "%s: within %.0fm max error pivot %.3f deg, flywheel %.1f RPM, heading %.3f deg",
+            alliance, MAX_SHOT_DISTANCE_M, maxPivotDeg, maxRPM, maxHeadingDeg
+        ));
+    }
+}
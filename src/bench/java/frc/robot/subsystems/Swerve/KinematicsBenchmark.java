@@ -0,0 +1,88 @@
+package frc.robot.subsystems.Swerve;
+
+import java.util.Random;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.robot.bench.BenchmarkHarness;
+
+/**
+ * Times SquareSwerveKinematics against SWERVE_DRIVE_KINEMATICS on random chassis speeds and
+ * module states, both directions, in ns and allocated bytes per call. SquareSwerveKinematicsTest
+ * checks that they agree.
+ *
+ * ./gradlew bench -Pbench=kinematics
+ */
+public class KinematicsBenchmark {
+    private static final int SAMPLES = 4096;
+    private static final double MAX_SPEED_M_S = 6.0;
+    private static final double MAX_OMEGA_RAD_S = 4.0 * Math.PI;
+    private static final int N = SquareSwerveKinematics.MODULES;
+
+    private static final ChassisSpeeds[] chassis = new ChassisSpeeds[SAMPLES];
+    private static final SwerveModuleState[][] states = new SwerveModuleState[SAMPLES][N];
+    private static final double[] speedOut = new double[N];
+    private static final double[] angleOut = new double[N];
+    private static final ChassisSpeeds chassisOut = new ChassisSpeeds();
+
+    public static void run() {
+        Random random = new Random(1678);
+        for (int i = 0; i < SAMPLES; i++) {
+            chassis[i] = new ChassisSpeeds(
+                (random.nextDouble() * 2 - 1) * MAX_SPEED_M_S,
+                (random.nextDouble() * 2 - 1) * MAX_SPEED_M_S,
+                (random.nextDouble() * 2 - 1) * MAX_OMEGA_RAD_S
+            );
+            for (int m = 0; m < N; m++) {
+                states[i][m] = new SwerveModuleState(
+                    (random.nextDouble() * 2 - 1) * MAX_SPEED_M_S,
+                    new Rotation2d((random.nextDouble() * 2 - 1) * Math.PI)
+                );
+            }
+        }
+
+        BenchmarkHarness.warmUp(
+            KinematicsBenchmark::wpilibForwardRound, KinematicsBenchmark::squareForwardRound,
+            KinematicsBenchmark::wpilibInverseRound, KinematicsBenchmark::squareInverseRound
+        );
+        report("toSwerveModuleStates", KinematicsBenchmark::wpilibForwardRound, KinematicsBenchmark::squareForwardRound);
+        report("toChassisSpeeds", KinematicsBenchmark::wpilibInverseRound, KinematicsBenchmark::squareInverseRound);
+    }
+
+    private static void report(String name, Runnable wpilibRound, Runnable squareRound) {
+        BenchmarkHarness.Result wpilib = BenchmarkHarness.measure(wpilibRound, SAMPLES);
+        BenchmarkHarness.Result square = BenchmarkHarness.measure(squareRound, SAMPLES);
+        System.err.println(name + ": SwerveDriveKinematics " + wpilib + ", SquareSwerveKinematics " + square);
+    }
+
+    private static void wpilibForwardRound() {
+        for (int i = 0; i < SAMPLES; i++) {
+            SwerveModuleState[] out = DrivetrainConstants.SWERVE_DRIVE_KINEMATICS.toSwerveModuleStates(chassis[i]);
+            BenchmarkHarness.consume(out[0].speedMetersPerSecond + out[3].angle.getRadians());
+        }
+    }
+
+    private static void squareForwardRound() {
+        for (int i = 0; i < SAMPLES; i++) {
+            DrivetrainConstants.SQUARE_SWERVE_KINEMATICS.toModuleStates(
+                chassis[i].vxMetersPerSecond, chassis[i].vyMetersPerSecond, chassis[i].omegaRadiansPerSecond, speedOut, angleOut
+            );
+            BenchmarkHarness.consume(speedOut[0] + angleOut[3]);
+        }
+    }
+
+    private static void wpilibInverseRound() {
+        for (int i = 0; i < SAMPLES; i++) {
+            ChassisSpeeds out = DrivetrainConstants.SWERVE_DRIVE_KINEMATICS.toChassisSpeeds(states[i]);
+            BenchmarkHarness.consume(out.vxMetersPerSecond + out.omegaRadiansPerSecond);
+        }
+    }
+
+    private static void squareInverseRound() {
+        for (int i = 0; i < SAMPLES; i++) {
+            DrivetrainConstants.SQUARE_SWERVE_KINEMATICS.toChassisSpeeds(states[i], chassisOut);
+            BenchmarkHarness.consume(chassisOut.vxMetersPerSecond + chassisOut.omegaRadiansPerSecond);
+        }
+    }
+}
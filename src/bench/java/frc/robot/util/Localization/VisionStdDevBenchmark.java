@@ -0,0 +1,226 @@
+package frc.robot.util.Localization;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.photonvision.EstimatedRobotPose;
+import org.photonvision.PhotonCamera;
+import org.photonvision.PhotonPoseEstimator;
+import org.photonvision.PhotonPoseEstimator.PoseStrategy;
+import org.photonvision.common.dataflow.structures.Packet;
+import org.photonvision.targeting.PhotonPipelineResult;
+
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Transform2d;
+import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.util.datalog.DataLogReader;
+import frc.robot.subsystems.Swerve.DrivetrainConstants;
+import frc.robot.util.Replay.Replay;
+import frc.robot.util.Replay.ReplayRunner;
+
+/**
+ * Runs the recorded odometry samples and camera frames of a match log through a standalone pose
+ * estimator once per std dev model. Each model runs twice, once clean and once with a pose error
+ * injected a few seconds in, and the time until the disturbed run settles back onto the clean one
+ * is reported along with the cost of the model itself.
+ *
+ * ./gradlew bench -Pbench=vision -PbenchArgs=(path to .wpilog)
+ */
+public class VisionStdDevBenchmark {
+    private static final int MODULE_COUNT = 4;
+    private static final String[] CAM_NAMES = {SteelTalonsLocalization.LEFT_CAM_NAME, SteelTalonsLocalization.RIGHT_CAM_NAME};
+    private static final Transform3d[] ROBOT_TO_CAMS = {SteelTalonsLocalization.LEFT_ROBOT_TO_CAM, SteelTalonsLocalization.RIGHT_ROBOT_TO_CAM};
+
+    private static final Transform2d INJECTED_ERROR = new Transform2d(new Translation2d(0.75, -0.5), Rotation2d.fromDegrees(15));
+    private static final double INJECT_AFTER_S = 5.0;
+    private static final double CONVERGED_M = 0.05;
+    private static final double CONVERGED_RAD = Math.toRadians(2.0);
+
+    private static class Loop {
+        double timestamp;
+        OdometryInputs odometry;
+        PhotonPipelineResult[][] frames = new PhotonPipelineResult[CAM_NAMES.length][ApriltagCam.MAX_FRAMES_PER_LOOP];
+        int[] frameCounts = new int[CAM_NAMES.length];
+    }
+
+    private static class Run {
+        double[] x;
+        double[] y;
+        double[] theta;
+        int measurements = 0;
+        int accepted = 0;
+        long modelNanos = 0;
+    }
+
+    public static void run(String path) {
+        if (!HAL.initialize(500, 0)) {
+            throw new IllegalStateException("Failed to initialize HAL");
+        }
+        DataLogReader reader = ReplayRunner.open(path);
+        if (reader == null) {
+            return;
+        }
+        List<Loop> loops = load(reader);
+        if (loops.isEmpty()) {
+            System.err.println("Vision benchmark: no recorded loops in " + path);
+            return;
+        }
+
+        AprilTagFieldLayout layout = LocalizationUtil.loadFieldLayout();
+        PhotonCamera[] cams = new PhotonCamera[CAM_NAMES.length];
+        for (int i = 0; i < cams.length; i++) {
+            cams[i] = new PhotonCamera(CAM_NAMES[i]);
+        }
+
+        int injectLoop = 0;
+        while (injectLoop < loops.size() - 1 && loops.get(injectLoop).timestamp - loops.get(0).timestamp < INJECT_AFTER_S) {
+            injectLoop++;
+        }
+
+        VisionStdDevModel[] models = {new LegacyStdDevModel(), new ScaledStdDevModel()};
+        for (VisionStdDevModel model : models) {
+            Run clean = simulate(loops, model, layout, cams, -1);
+            Run disturbed = simulate(loops, model, layout, cams, injectLoop);
+            double converge = timeToConverge(loops, clean, disturbed, injectLoop);
+            System.err.println(String.format(
+                "%s: %s, %d/%d measurements used, %.0f ns per model call",
+                model.getClass().getSimpleName(),
+                Double.isNaN(converge) ? "never converged" : String.format("converged %.2fs after a %.2fm/%.0fdeg error", converge, INJECTED_ERROR.getTranslation().getNorm(), INJECTED_ERROR.getRotation().getDegrees()),
+                clean.accepted, clean.measurements, clean.modelNanos / (double) Math.max(clean.measurements, 1)
+            ));
+        }
+    }
+
+    private static List<Loop> load(DataLogReader reader) {
+        List<Loop> loops = new ArrayList<Loop>();
+        ApriltagCam.Inputs camInputs = new ApriltagCam.Inputs();
+        Packet packet = new Packet(1);
+        ReplayRunner.forEachLoop(reader, timestampUs -> {
+            Loop loop = new Loop();
+            loop.timestamp = timestampUs / 1e6;
+            loop.odometry = new OdometryInputs(OdometryThread.BUFFER_CAPACITY, MODULE_COUNT);
+            Replay.readInputs("Odometry", loop.odometry);
+            for (int i = 0; i < CAM_NAMES.length; i++) {
+                Replay.readInputs("Vision/" + CAM_NAMES[i], camInputs);
+                loop.frameCounts[i] = ApriltagCam.decodeFrames(camInputs, packet, loop.frames[i]);
+            }
+            loops.add(loop);
+        });
+        return loops;
+    }
+
+    private static Run simulate(List<Loop> loops, VisionStdDevModel model, AprilTagFieldLayout layout, PhotonCamera[] cams, int injectLoop) {
+        PhotonPoseEstimator[] photonEstimators = new PhotonPoseEstimator[cams.length];
+        for (int i = 0; i < cams.length; i++) {
+            photonEstimators[i] = new PhotonPoseEstimator(layout, PoseStrategy.MULTI_TAG_PNP_ON_COPROCESSOR, cams[i], ROBOT_TO_CAMS[i]);
+            photonEstimators[i].setMultiTagFallbackStrategy(PoseStrategy.CLOSEST_TO_REFERENCE_POSE);
+        }
+
+        SwerveModulePosition[] positions = new SwerveModulePosition[MODULE_COUNT];
+        for (int i = 0; i < MODULE_COUNT; i++) {
+            positions[i] = new SwerveModulePosition();
+        }
+        Rotation2d gyro = new Rotation2d();
+        SwerveDrivePoseEstimator estimator = new SwerveDrivePoseEstimator(
+            DrivetrainConstants.SWERVE_DRIVE_KINEMATICS, gyro, positions, new Pose2d(),
+            SteelTalonsLocalization.STATE_STD_DEVS, SteelTalonsLocalization.DEFAULT_VISION_STD_DEVS
+        );
+
+        Run run = new Run();
+        run.x = new double[loops.size()];
+        run.y = new double[loops.size()];
+        run.theta = new double[loops.size()];
+        Optional<Pose2d> lastPose = Optional.empty();
+        Pose2d previous = estimator.getEstimatedPosition();
+        int[] cursors = new int[cams.length];
+
+        for (int k = 0; k < loops.size(); k++) {
+            Loop loop = loops.get(k);
+            OdometryInputs odometry = loop.odometry;
+            for (int s = 0; s < odometry.count; s++) {
+                for (int i = 0; i < MODULE_COUNT; i++) {
+                    positions[i].distanceMeters = odometry.drivePositionsMeters[s * MODULE_COUNT + i];
+                    positions[i].angle = new Rotation2d(odometry.steerAnglesRad[s * MODULE_COUNT + i]);
+                }
+                gyro = new Rotation2d(odometry.gyroYawRad[s]);
+                estimator.updateWithTime(odometry.timestamps[s], gyro, positions);
+            }
+            if (k == injectLoop) {
+                estimator.resetPosition(gyro, positions, estimator.getEstimatedPosition().transformBy(INJECTED_ERROR));
+            }
+
+            Pose2d current = estimator.getEstimatedPosition();
+            double dt = k > 0 ? Math.max(loop.timestamp - loops.get(k - 1).timestamp, 1e-3) : 0.02;
+            double speed = current.getTranslation().getDistance(previous.getTranslation()) / dt;
+            double omega = MathUtil.angleModulus(current.getRotation().getRadians() - previous.getRotation().getRadians()) / dt;
+
+            for (int i = 0; i < cursors.length; i++) {
+                cursors[i] = 0;
+            }
+            while (true) {
+                int next = -1;
+                for (int i = 0; i < cams.length; i++) {
+                    if (cursors[i] < loop.frameCounts[i] && (next < 0 ||
+                        loop.frames[i][cursors[i]].getTimestampSeconds() < loop.frames[next][cursors[next]].getTimestampSeconds())) {
+                        next = i;
+                    }
+                }
+                if (next < 0) {
+                    break;
+                }
+                Pose2d refPose = estimator.getEstimatedPosition();
+                photonEstimators[next].setReferencePose(refPose);
+                Optional<EstimatedRobotPose> estimate = photonEstimators[next].update(loop.frames[next][cursors[next]++]);
+                if (estimate.isEmpty()) {
+                    continue;
+                }
+
+                long start = System.nanoTime();
+                Optional<SteelTalonsVisionMeasurement> measurement = model.measure(estimate.get(), refPose, lastPose, speed, omega);
+                run.modelNanos += System.nanoTime() - start;
+                run.measurements++;
+                if (measurement.isPresent()) {
+                    SteelTalonsVisionMeasurement m = measurement.get();
+                    if (m.getConfidence().get(0, 0) < Double.MAX_VALUE) {
+                        run.accepted++;
+                    }
+                    estimator.addVisionMeasurement(m.getPose(), m.getTimestamp(), m.getConfidence());
+                    lastPose = Optional.of(m.getPose());
+                } else {
+                    lastPose = Optional.empty();
+                }
+            }
+
+            previous = estimator.getEstimatedPosition();
+            run.x[k] = previous.getX();
+            run.y[k] = previous.getY();
+            run.theta[k] = previous.getRotation().getRadians();
+        }
+        return run;
+    }
+
+    // Seconds from the injection until the disturbed run stays within tolerance of the clean one, NaN if it never does
+    private static double timeToConverge(List<Loop> loops, Run clean, Run disturbed, int injectLoop) {
+        int settled = -1;
+        for (int k = injectLoop; k < loops.size(); k++) {
+            double translationError = Math.hypot(disturbed.x[k] - clean.x[k], disturbed.y[k] - clean.y[k]);
+            double headingError = Math.abs(MathUtil.angleModulus(disturbed.theta[k] - clean.theta[k]));
+            if (translationError < CONVERGED_M && headingError < CONVERGED_RAD) {
+                if (settled < 0) {
+                    settled = k;
+                }
+            } else {
+                settled = -1;
+            }
+        }
+        return settled < 0 ? Double.NaN : loops.get(settled).timestamp - loops.get(injectLoop).timestamp;
+    }
+}
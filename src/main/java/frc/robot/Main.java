@@ -5,11 +5,19 @@
 package frc.robot;
 
 import edu.wpi.first.wpilibj.RobotBase;
+import frc.robot.util.Replay.ReplayRunner;
 
 public final class Main {
   private Main() {}
 
   public static void main(String... args) {
-    RobotBase.startRobot(Robot::new);
+    // REPLAY_LOG=<path to .wpilog> re-runs a recorded match instead of starting the robot,
+    // benchmarks are in the bench source set (./gradlew bench)
+    String replayLog = System.getenv("REPLAY_LOG");
+    if (replayLog != null) {
+      ReplayRunner.run(replayLog);
+    } else {
+      RobotBase.startRobot(Robot::new);
+    }
   }
 }
@@ -14,25 +14,39 @@ import frc.robot.subsystems.Shooter.Shooter;
 import frc.robot.subsystems.Shooter.ShooterConstants;
 import frc.robot.subsystems.managing.SubsystemManager;
 import frc.robot.util.LEDManager;
+import frc.robot.util.LoopProfiler;
 import frc.robot.util.SteelTalonsLogger;
 import frc.robot.util.LEDManager.LEDState;
+import frc.robot.util.Replay.Replay;
 
 public class Robot extends TimedRobot {
   private Command m_autonomousCommand;
 
 
   private RobotContainer m_robotContainer;
+  private final SteelTalonsLogger.BooleanHandle zeroButtonLog = SteelTalonsLogger.booleanHandle("zero butto");
   private DigitalInput zeroButton;
 
 
   @Override
   public void robotInit() {
+    LoopProfiler.bindScheduler();
     m_robotContainer = new RobotContainer();
   }
 
+  // public so ReplayRunner can step the robot without the TimedRobot notifier
+  @Override
+  public void loopFunc() {
+    Replay.beginLoop();
+    super.loopFunc();
+  }
+
   @Override
   public void robotPeriodic() {
+    Replay.recordDriverStation();
+    LoopProfiler.startLoop();
     CommandScheduler.getInstance().run();
+    LoopProfiler.endLoop();
   }
 
   @Override
@@ -42,7 +56,7 @@ public class Robot extends TimedRobot {
 
   @Override
   public void disabledPeriodic() {
-    SteelTalonsLogger.post("zero butto", RobotContainer.getLimitSwitch().get());
+    zeroButtonLog.set(RobotContainer.getLimitSwitch().get());
     if (!RobotContainer.getLimitSwitch().get()) {
       Shooter.getInstance().getShooterPivot().setPosition(ShooterConstants.SHOOTER_PIVOT_HARDSTOP.getRadians());
       Intake.getInstance().getPivot().setPosition(IntakeConstants.HARDSTOP_POS.getRadians());
@@ -86,6 +100,10 @@ public class Robot extends TimedRobot {
   @Override
   public void testInit() {
     CommandScheduler.getInstance().cancelAll();
+    Command sysIdCommand = m_robotContainer.getSysIdCommand();
+    if (sysIdCommand != null) {
+      sysIdCommand.schedule();
+    }
   }
 
   @Override
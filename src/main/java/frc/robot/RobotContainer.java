@@ -24,8 +24,11 @@ import frc.robot.subsystems.Vision.ObjectDetector;
 import frc.robot.subsystems.managing.AutonShoot;
 import frc.robot.subsystems.managing.SubsystemManager;
 import frc.robot.util.AutonUtil;
+import frc.robot.util.CANFramePolicy;
+import frc.robot.util.DeviceInitializer;
 import frc.robot.util.LEDManager;
 import frc.robot.util.SteelTalonsLogger;
+import frc.robot.util.SysIdChooser;
 import frc.robot.util.Localization.SteelTalonsLocalization;
 
 public class RobotContainer {
@@ -33,6 +36,7 @@ public class RobotContainer {
   private SwerveDrivetrain drivetrain;
   private Intake intake;
   private SendableChooser<Command> autoChooser;
+  private SysIdChooser sysIdChooser;
   private Shooter shooter;
   private LEDManager ledManager;
   private Climber climber;
@@ -45,31 +49,39 @@ public class RobotContainer {
 
   public RobotContainer() {
 
-    drivetrain = new SwerveDrivetrain();
-    drivetrain.setDefaultCommand(drivetrain.getDriveCommand(new CommandXboxController(0)));
+    // report() prints even if a constructor threw, then fails boot for any device that didn't come up
+    try {
+      drivetrain = new SwerveDrivetrain();
+      drivetrain.setDefaultCommand(drivetrain.getDriveCommand(new CommandXboxController(0)));
+      new SteelTalonsLocalization(); // has to be after drivetrain, and before anything that reads RobotState in its periodic
 
-    intake = new Intake();
-    shooter = new Shooter();
-    ledManager = new LEDManager();
+      intake = new Intake();
+      shooter = new Shooter();
+      ledManager = new LEDManager();
 
-    noteCam = new ObjectDetector("limelight-notecam"); // may need to move into intake subsystem
-    tagCam = new ObjectDetector("limelight-front");
+      noteCam = new ObjectDetector("limelight-notecam"); // may need to move into intake subsystem
+      tagCam = new ObjectDetector("limelight-front");
 
-    climber = new Climber();
+      climber = new Climber();
 
-    input = new DigitalInput(4);
+      input = new DigitalInput(4);
 
-    registerNamedCommands(); // Register commands BEFORE any other auton shenanigans
+      registerNamedCommands(); // Register commands BEFORE any other auton shenanigans
 
-    new SteelTalonsLocalization(); // has to be after drivetrain
-    new SteelTalonsLogger();
-    new AutonUtil(); // has to be last
+      new SteelTalonsLogger();
+      new AutonUtil(); // has to be last
 
-    autoChooser = AutoBuilder.buildAutoChooser();
-    SmartDashboard.putData("Auto Chooser", autoChooser);
+      autoChooser = AutoBuilder.buildAutoChooser();
+      SmartDashboard.putData("Auto Chooser", autoChooser);
+      sysIdChooser = new SysIdChooser(drivetrain, shooter, intake);
 
-    new PilotingControls(new CommandXboxController(0));
-    new OperatingControls(new CommandXboxController(1));
+      new PilotingControls(new CommandXboxController(0));
+      new OperatingControls(new CommandXboxController(1));
+
+      CANFramePolicy.report();
+    } finally {
+      DeviceInitializer.report();
+    }
   }
 
   private void registerNamedCommands() {
@@ -92,4 +104,8 @@ public class RobotContainer {
   public Command getAutonomousCommand() {
     return autoChooser.getSelected();
   }
+
+  public Command getSysIdCommand() {
+    return sysIdChooser.getSelected();
+  }
 }
@@ -1,33 +1,52 @@
 package frc.robot.subsystems.Climber;
 
+import com.ctre.phoenix6.StatusSignal;
 import com.ctre.phoenix6.hardware.TalonFX;
 
 import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.CommandXboxController;
+import frc.robot.util.CANFramePolicy;
+import frc.robot.util.DeviceInitializer;
+import frc.robot.util.LoopProfiler;
 
 public class Climber extends SubsystemBase {
 
     private TalonFX rightClimber;
     private TalonFX leftClimber;
+    private StatusSignal<Double> leftPosition;
 
     private double setpoint;
 
     private CommandXboxController commandController;
 
     private static Climber instance;
+    private int profilerSlot;
 
     public Climber() {
         //men
-        rightClimber = new TalonFX(ClimberConstants.RIGHT_CLIMBER_ID);
-        leftClimber = new TalonFX(ClimberConstants.LEFT_CLIMBER_ID);
-
-        ClimberConstants.configureClimber(rightClimber, false);
-        ClimberConstants.configureClimber(leftClimber, false);
+        DeviceInitializer.Task<TalonFX> rightTask = DeviceInitializer.submit("Right Climber", () -> {
+            TalonFX motor = new TalonFX(ClimberConstants.RIGHT_CLIMBER_ID);
+            ClimberConstants.configureClimber(motor, false);
+            CANFramePolicy.optimize(motor, true);
+            return motor;
+        });
+        DeviceInitializer.Task<TalonFX> leftTask = DeviceInitializer.submit("Left Climber", () -> {
+            TalonFX motor = new TalonFX(ClimberConstants.LEFT_CLIMBER_ID);
+            ClimberConstants.configureClimber(motor, false);
+            leftPosition = motor.getPosition();
+            leftPosition.setUpdateFrequency(1.0 / TimedRobot.kDefaultPeriod);
+            CANFramePolicy.optimize(motor, true, leftPosition);
+            return motor;
+        });
+        rightClimber = rightTask.get();
+        leftClimber = leftTask.get();
 
         setpoint = ClimberConstants.STOW_POSITION;
         commandController = new CommandXboxController(1);
+        profilerSlot = LoopProfiler.register(getName());
 
         instance = this;
     }
@@ -45,7 +64,7 @@ public class Climber extends SubsystemBase {
     }
     
     public double getPosition() {
-        return ClimberConstants.getClimberRotationsToMeters(leftClimber.getPosition().getValueAsDouble());
+        return ClimberConstants.getClimberRotationsToMeters(leftPosition.refresh().getValueAsDouble());
     }
 
     public void setRaw(double left, double right) {
@@ -60,6 +79,7 @@ public class Climber extends SubsystemBase {
 
     @Override
     public void periodic() {
+        LoopProfiler.begin(profilerSlot);
         double left = -commandController.getLeftY();
         double right = -commandController.getRightY();
         if (
@@ -69,6 +89,7 @@ public class Climber extends SubsystemBase {
                     Math.abs(right) > 0.5 ? right * 0.8 : 0.0
                 );                    
         }
+        LoopProfiler.end(profilerSlot);
     }
 
     public Command getClimbCommand() {
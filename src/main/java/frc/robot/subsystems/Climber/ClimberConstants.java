@@ -4,6 +4,7 @@ import com.ctre.phoenix6.configs.FeedbackConfigs;
 import com.ctre.phoenix6.configs.Slot0Configs;
 import com.ctre.phoenix6.configs.TalonFXConfiguration;
 import com.ctre.phoenix6.hardware.TalonFX;
+import com.ctre.phoenix6.signals.InvertedValue;
 import com.ctre.phoenix6.signals.NeutralModeValue;
 
 import edu.wpi.first.math.util.Units;
@@ -26,20 +27,18 @@ public class ClimberConstants {
         config.CurrentLimits.StatorCurrentLimitEnable = true;
         config.CurrentLimits.StatorCurrentLimit = 35.0;
 
-        Slot0Configs pidConfigs = new Slot0Configs();
+        Slot0Configs pidConfigs = config.Slot0;
         pidConfigs.kP = 0.0;
         pidConfigs.kI = 0.0;
         pidConfigs.kD = 0.0;
 
-        FeedbackConfigs feedbackConfigs = new FeedbackConfigs();
+        FeedbackConfigs feedbackConfigs = config.Feedback;
         feedbackConfigs.SensorToMechanismRatio = 25.0;
 
-        motor.getConfigurator().apply(config);
-        motor.getConfigurator().apply(pidConfigs);
-        motor.getConfigurator().apply(feedbackConfigs);
+        config.MotorOutput.NeutralMode = NeutralModeValue.Brake;
+        config.MotorOutput.Inverted = inversion ? InvertedValue.Clockwise_Positive : InvertedValue.CounterClockwise_Positive;
 
-        motor.setNeutralMode(NeutralModeValue.Brake);
-        motor.setInverted(inversion);
+        motor.getConfigurator().apply(config); // one apply instead of one per config group
     }
 
     public static double getClimberRotationsToMeters(double rotations) {
@@ -8,6 +8,7 @@ import frc.robot.util.SteelTalonsLogger;
 public class HomeIntake extends Command {
 
     private Intake intake;
+    private final SteelTalonsLogger.BooleanHandle homingLog = SteelTalonsLogger.booleanHandle("intake homing");
     private Timer timer;
 
     private double homingTargetDegrees;
@@ -38,7 +39,7 @@ public class HomeIntake extends Command {
     public void execute() {
         if (Math.abs(intake.getPivot().getVelocity()) > Units.degreesToRadians(homingTargetDegrees)) {
             timerContinueHoming();
-            SteelTalonsLogger.post("intake homing", true);
+            homingLog.set(true);
         }
     }
 
@@ -52,7 +53,7 @@ public class HomeIntake extends Command {
         intake.setHoming(false);
         intake.resetPivotEncoder(IntakeConstants.HARDSTOP_POS);
         intake.setPivotSetpoint(IntakeConstants.STOWED_POS);
-        SteelTalonsLogger.post("intake homing", false);
+        homingLog.set(false);
     }
     
 }
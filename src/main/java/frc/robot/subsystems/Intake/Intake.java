@@ -11,7 +11,13 @@ import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.CommandXboxController;
+import frc.robot.util.CANFramePolicy;
+import frc.robot.util.DeviceInitializer;
+import frc.robot.util.LoopProfiler;
 import frc.robot.util.SteelTalonsLogger;
+import frc.robot.util.Replay.InputsTable;
+import frc.robot.util.Replay.LoggableInputs;
+import frc.robot.util.Replay.Replay;
 import frc.robot.util.SmaxProfiles.SteelTalonsSparkMaxServo;
 
 public class Intake extends SubsystemBase {
@@ -19,6 +25,7 @@ public class Intake extends SubsystemBase {
     private TalonFX rollerTalon;
     private SteelTalonsSparkMaxServo pivot;
     private DigitalInput beamBreaker;
+    private final Inputs inputs = new Inputs();
 
     private double rollerSetpoint = IntakeConstants.INTAKE_SPEED_HOLD;
     private Rotation2d setpoint = IntakeConstants.STOWED_POS;
@@ -26,27 +33,56 @@ public class Intake extends SubsystemBase {
     private static Intake instance;
 
     private boolean isHoming;
+    private boolean characterizing = false; // SysId owns the pivot, periodic leaves the motors alone
+    private int profilerSlot;
+    private final SteelTalonsLogger.DoubleHandle pivotAngleLog = SteelTalonsLogger.doubleHandle("Intake pivot angle");
+    private final SteelTalonsLogger.DoubleHandle pivotSetpointLog = SteelTalonsLogger.doubleHandle("Intake pivot setpoint");
+    private final SteelTalonsLogger.BooleanHandle loadedLog = SteelTalonsLogger.booleanHandle("Intake Loaded");
+    private final SteelTalonsLogger.BooleanHandle atGoalLog = SteelTalonsLogger.booleanHandle("intake at goal 5");
+    private final SteelTalonsLogger.DoubleHandle rollerSetpointLog = SteelTalonsLogger.doubleHandle("intake setpoint roller");
 
     public Intake () {
         IntakeConstants.configureIntake();
-        rollerTalon = new TalonFX(IntakeConstants.ROLLER_MOTOR_ID);
-
-        TalonFXConfiguration config = new TalonFXConfiguration();
-        config.CurrentLimits.StatorCurrentLimitEnable = true;
-        config.CurrentLimits.StatorCurrentLimit = 50;
-
-        rollerTalon.getConfigurator().apply(config);
-        pivot = new SteelTalonsSparkMaxServo(IntakeConstants.PIVOT_CONFIG);
+        profilerSlot = LoopProfiler.register(getName());
+        DeviceInitializer.Task<TalonFX> rollerTask = DeviceInitializer.submit("Intake Roller", () -> {
+            TalonFX roller = new TalonFX(IntakeConstants.ROLLER_MOTOR_ID);
+
+            TalonFXConfiguration config = new TalonFXConfiguration();
+            config.CurrentLimits.StatorCurrentLimitEnable = true;
+            config.CurrentLimits.StatorCurrentLimit = 50;
+
+            roller.getConfigurator().apply(config);
+            CANFramePolicy.optimize(roller, true); // open loop, nothing reads the roller back
+            return roller;
+        });
+        DeviceInitializer.Task<SteelTalonsSparkMaxServo> pivotTask = DeviceInitializer.submit(IntakeConstants.PIVOT_CONFIG.name, () -> new SteelTalonsSparkMaxServo(IntakeConstants.PIVOT_CONFIG));
+        rollerTalon = rollerTask.get();
+        pivot = pivotTask.get();
         pivot.disableContinuousInput();
         resetPivotEncoder(IntakeConstants.HARDSTOP_POS);
         // pivot.resetController();
         // setPivotSetpoint(IntakeConstants.STOWED_POS);
         beamBreaker = new DigitalInput(IntakeConstants.BEAM_BREAKER_PORT);
+        inputs.beamBreak = beamBreaker.get();
         isHoming = false;
 
         instance = this; 
     }
 
+    public static class Inputs implements LoggableInputs {
+        public boolean beamBreak; // raw DIO, false when covered
+
+        @Override
+        public void toLog(InputsTable table) {
+            table.put("BeamBreak", beamBreak);
+        }
+
+        @Override
+        public void fromLog(InputsTable table) {
+            beamBreak = table.get("BeamBreak", true);
+        }
+    }
+
     public static Intake getInstance() {
         return instance;
     }
@@ -101,7 +137,7 @@ public class Intake extends SubsystemBase {
     }
 
     public boolean sensorCovered() {
-        return !beamBreaker.get();
+        return !inputs.beamBreak;
     }
 
     public boolean atGoal() {
@@ -120,13 +156,26 @@ public class Intake extends SubsystemBase {
         return isHoming;
     }
 
+    public void setCharacterizing(boolean characterizing) {
+        this.characterizing = characterizing;
+        if (characterizing) {
+            pivot.forceStop();
+        }
+        pivot.setCharacterizing(characterizing);
+    }
+
     @Override
     public void periodic() {
-        if (!isHoming) {
-            pivot.setSetpoint(setpoint.getRadians(), 
-            0.0
-            // pivotFF.calculate(getPivot().getPosition(), pivot.getSetpointVelocity())
-            );
+        LoopProfiler.begin(profilerSlot);
+        if (!Replay.isReplay()) {
+            inputs.beamBreak = beamBreaker.get();
+        }
+        Replay.processInputs("Intake", inputs);
+
+        if (characterizing) {
+            hardSetRoller(0.0);
+        } else if (!isHoming) {
+            pivot.setSetpoint(setpoint.getRadians(), 0.0); // gravity and profile feedforward come from PIVOT_CONFIG
 
             hardSetRoller(rollerSetpoint / IntakeConstants.MAX_KRAKEN_ROLLER_SPEED_M_S); //rollerSetpoint / IntakeConstants.MAX_KRAKEN_ROLLER_SPEED_M_S
         } else {
@@ -136,6 +185,7 @@ public class Intake extends SubsystemBase {
         // CommandXboxController tester = new CommandXboxController(2);
         // hardSetPivot(tester.getLeftX());
         log();
+        LoopProfiler.end(profilerSlot);
     }
 
     public Command getIntakeCommand() {
@@ -155,8 +205,8 @@ public class Intake extends SubsystemBase {
     }
 
     public void log() {
-        SteelTalonsLogger.post("Intake pivot angle", pivot.getPosition());
-        SteelTalonsLogger.post("Intake pivot setpoint", setpoint.getRadians());
+        pivotAngleLog.set(pivot.getPosition());
+        pivotSetpointLog.set(setpoint.getRadians());
         // SteelTalonsLogger.post("Intake pivot error", pivot.getError());
 
         // SteelTalonsLogger.post("Intake roller angle", roller.getVelocity());
@@ -165,9 +215,9 @@ public class Intake extends SubsystemBase {
 
         // SteelTalonsLogger.post("setpoint velocity", pivot.getSetpointVelocity());
 
-        SteelTalonsLogger.post("Intake Loaded", sensorCovered());
-        SteelTalonsLogger.post("intake at goal 5", atGoal(5));
-        SteelTalonsLogger.post("intake setpoint roller", rollerSetpoint);
+        loadedLog.set(sensorCovered());
+        atGoalLog.set(atGoal(5));
+        rollerSetpointLog.set(rollerSetpoint);
 
         // pivot.log();
     }
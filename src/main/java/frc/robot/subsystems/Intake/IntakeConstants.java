@@ -62,5 +62,12 @@ public class IntakeConstants {
         ROLLER_CONFIG.kFF = 1.0 / ROLLER_CONFIG.maxVel;
         PIVOT_CONFIG.kP = 6.0; // 5
         PIVOT_CONFIG.kD = 0.3;
+        PIVOT_CONFIG.servoControl = STSmaxConfig.ServoControl.kRio;
+        // kV from free speed, the rest are estimates until the SysId arm fit. Horizontal on the ground
+        PIVOT_CONFIG.kS = 0.1;
+        PIVOT_CONFIG.kG = 0.4;
+        PIVOT_CONFIG.kV = 12.0 / PIVOT_CONFIG.getStandardMaxVelocity();
+        PIVOT_CONFIG.kA = 0.02;
+        PIVOT_CONFIG.gravityOffsetRad = -INTAKING_POS.getRadians();
     }
 }
\ No newline at end of file
@@ -8,17 +8,22 @@ import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.CommandXboxController;
+import frc.robot.util.DeviceInitializer;
 import frc.robot.util.LEDManager;
-import frc.robot.util.MiscUtil;
+import frc.robot.util.LoopProfiler;
+import frc.robot.util.RobotState;
 import frc.robot.util.SteelTalonsLogger;
-import frc.robot.util.SmaxProfiles.SteelTalonsSparkMaxBangBang;
+import frc.robot.util.Replay.InputsTable;
+import frc.robot.util.Replay.LoggableInputs;
+import frc.robot.util.Replay.Replay;
+import frc.robot.util.SmaxProfiles.SteelTalonsSparkMaxStateSpaceFlywheel;
 import frc.robot.util.SmaxProfiles.SteelTalonsSparkMaxFlywheel;
 import frc.robot.util.SmaxProfiles.SteelTalonsSparkMaxServo;
 
 public class Shooter extends SubsystemBase {
 
-  private SteelTalonsSparkMaxBangBang leftFlywheel;
-  private SteelTalonsSparkMaxBangBang rightFlywheel;
+  private SteelTalonsSparkMaxStateSpaceFlywheel leftFlywheel;
+  private SteelTalonsSparkMaxStateSpaceFlywheel rightFlywheel;
   private SteelTalonsSparkMaxFlywheel feeder;
   private SteelTalonsSparkMaxServo ampMotor;
   private SteelTalonsSparkMaxServo pivotMaster;
@@ -31,35 +36,74 @@ public class Shooter extends SubsystemBase {
   private Rotation2d pivotSetpoint = new Rotation2d();
   private boolean homingPivot = false;
   private boolean homingAmp = false;
+  private boolean characterizing = false; // SysId owns every motor, periodic leaves them alone
 
   private DigitalInput earlyBeamBrake;
   private DigitalInput lateBeamBrake;
+  private final Inputs inputs = new Inputs();
 
   private static Shooter instance;
+  private int profilerSlot;
+  private final SteelTalonsLogger.DoubleHandle leftSpeedLog = SteelTalonsLogger.doubleHandle("Shooter Left Speed");
+  private final SteelTalonsLogger.DoubleHandle rightSpeedLog = SteelTalonsLogger.doubleHandle("Shooter Right Speed");
+  private final SteelTalonsLogger.DoubleHandle pivotPositionLog = SteelTalonsLogger.doubleHandle("Pivot Position");
+  private final SteelTalonsLogger.DoubleHandle pivotSetpointLog = SteelTalonsLogger.doubleHandle("Pivot setpiint shooter");
+  private final SteelTalonsLogger.BooleanHandle flywheelRampedLog = SteelTalonsLogger.booleanHandle("FLYWHEEL RAMPED");
+  private final SteelTalonsLogger.BooleanHandle loadedLog = SteelTalonsLogger.booleanHandle("Shooter Loaded");
+  private final SteelTalonsLogger.BooleanHandle readyLog = SteelTalonsLogger.booleanHandle("Note Ready To Shoot");
+  private final SteelTalonsLogger.BooleanHandle pivotAtGoalLog = SteelTalonsLogger.booleanHandle("pivot at goal 3");
 
   /** Creates a new Shooter. */
   public Shooter() {
     ShooterConstants.configureShooter();
-
-    leftFlywheel = new SteelTalonsSparkMaxBangBang(ShooterConstants.shooterLeftFlywheelConfig);
-    rightFlywheel = new SteelTalonsSparkMaxBangBang(ShooterConstants.shooterRightFlywheelConfig);
-    feeder = new SteelTalonsSparkMaxFlywheel(ShooterConstants.feederRollerConfig);
+    profilerSlot = LoopProfiler.register(getName());
+
+    DeviceInitializer.Task<SteelTalonsSparkMaxStateSpaceFlywheel> leftTask = DeviceInitializer.submit(ShooterConstants.shooterLeftFlywheelConfig.name, () -> new SteelTalonsSparkMaxStateSpaceFlywheel(ShooterConstants.shooterLeftFlywheelConfig));
+    DeviceInitializer.Task<SteelTalonsSparkMaxStateSpaceFlywheel> rightTask = DeviceInitializer.submit(ShooterConstants.shooterRightFlywheelConfig.name, () -> new SteelTalonsSparkMaxStateSpaceFlywheel(ShooterConstants.shooterRightFlywheelConfig));
+    DeviceInitializer.Task<SteelTalonsSparkMaxFlywheel> feederTask = DeviceInitializer.submit(ShooterConstants.feederRollerConfig.name, () -> new SteelTalonsSparkMaxFlywheel(ShooterConstants.feederRollerConfig));
+    DeviceInitializer.Task<SteelTalonsSparkMaxServo> ampTask = DeviceInitializer.submit(ShooterConstants.ampPivotConfig.name, () -> new SteelTalonsSparkMaxServo(ShooterConstants.ampPivotConfig));
+    DeviceInitializer.Task<SteelTalonsSparkMaxServo> masterTask = DeviceInitializer.submit(ShooterConstants.shooterPivotConfig.name, () -> new SteelTalonsSparkMaxServo(ShooterConstants.shooterPivotConfig));
+    DeviceInitializer.Task<SteelTalonsSparkMaxServo> slaveTask = DeviceInitializer.submit("Shooter Pivot Slave", () -> new SteelTalonsSparkMaxServo(ShooterConstants.shooterPivotConfig, ShooterConstants.SHOOTER_PIVOT_SLAVE_MOTOR_ID));
+
+    leftFlywheel = leftTask.get();
+    rightFlywheel = rightTask.get();
+    feeder = feederTask.get();
     feeder.disableLimiter();
-    ampMotor = new SteelTalonsSparkMaxServo(ShooterConstants.ampPivotConfig);
+    ampMotor = ampTask.get();
     ampMotor.disableContinuousInput();
 
-    pivotMaster = new SteelTalonsSparkMaxServo(ShooterConstants.shooterPivotConfig);
-    pivotSlave = new SteelTalonsSparkMaxServo(ShooterConstants.shooterPivotConfig, ShooterConstants.SHOOTER_PIVOT_SLAVE_MOTOR_ID);
+    pivotMaster = masterTask.get();
+    pivotSlave = slaveTask.get();
     pivotSlave.getSmax().follow(pivotMaster.getSmax(), true);
     pivotMaster.setPosition(0.0);
 
     earlyBeamBrake = new DigitalInput(ShooterConstants.EARLY_BEAM_BRAKER_PORT);
     lateBeamBrake = new DigitalInput(ShooterConstants.LATE_BEAM_BREAKER_PORT);
+    inputs.earlyBeamBreak = earlyBeamBrake.get();
+    inputs.lateBeamBreak = lateBeamBrake.get();
 
     instance = this;
     
   }
 
+  public static class Inputs implements LoggableInputs {
+    // raw DIO, false when covered
+    public boolean earlyBeamBreak;
+    public boolean lateBeamBreak;
+
+    @Override
+    public void toLog(InputsTable table) {
+      table.put("EarlyBeamBreak", earlyBeamBreak);
+      table.put("LateBeamBreak", lateBeamBreak);
+    }
+
+    @Override
+    public void fromLog(InputsTable table) {
+      earlyBeamBreak = table.get("EarlyBeamBreak", true);
+      lateBeamBreak = table.get("LateBeamBreak", true);
+    }
+  }
+
   public static Shooter getInstance() {
     return instance;
   }
@@ -125,8 +169,21 @@ public class Shooter extends SubsystemBase {
 
   @Override
   public void periodic() {
+    LoopProfiler.begin(profilerSlot);
+    if (!Replay.isReplay()) {
+      inputs.earlyBeamBreak = earlyBeamBrake.get();
+      inputs.lateBeamBreak = lateBeamBrake.get();
+    }
+    Replay.processInputs("Shooter", inputs);
+
+    if (characterizing) {
+      log();
+      LoopProfiler.end(profilerSlot);
+      return;
+    }
+
     CommandXboxController tester = new CommandXboxController(1);
-    if (MiscUtil.targetingInformation()[2] < 4.0 && loaded() && !tester.getHID().getBButton() && !tester.getHID().getYButton() && DriverStation.isTeleop()) {
+    if (RobotState.getSpeakerDistance() < 4.0 && loaded() && !tester.getHID().getBButton() && !tester.getHID().getYButton() && DriverStation.isTeleop()) {
       leftFlywheel.setSetpoint(ShooterConstants.FLYWHEEL_REV_SPEED_RPM, 0.0);
       rightFlywheel.setSetpoint(ShooterConstants.FLYWHEEL_REV_SPEED_RPM, 0.0);
   
@@ -159,13 +216,14 @@ public class Shooter extends SubsystemBase {
     }
 
     log();
+    LoopProfiler.end(profilerSlot);
   }
 
-  public SteelTalonsSparkMaxBangBang getLeftFlywheel() {
+  public SteelTalonsSparkMaxStateSpaceFlywheel getLeftFlywheel() {
     return leftFlywheel;
   }
 
-  public SteelTalonsSparkMaxBangBang getRightFlywheel() {
+  public SteelTalonsSparkMaxStateSpaceFlywheel getRightFlywheel() {
     return rightFlywheel;
   }
 
@@ -182,11 +240,11 @@ public class Shooter extends SubsystemBase {
   }
 
   public boolean loaded() {
-    return !earlyBeamBrake.get();
+    return !inputs.earlyBeamBreak;
   }
 
   public boolean inPosition() {
-    return loaded() && !lateBeamBrake.get();
+    return loaded() && !inputs.lateBeamBreak;
   }
 
   public boolean getHoming() {
@@ -205,20 +263,36 @@ public class Shooter extends SubsystemBase {
     this.homingAmp = homingAmp;
   }
 
+  // everything is stopped once on the way in, after that only the running SysId test commands a motor
+  public void setCharacterizing(boolean characterizing) {
+    this.characterizing = characterizing;
+    if (characterizing) {
+      leftFlywheel.forceStop();
+      rightFlywheel.forceStop();
+      feeder.forceStop();
+      pivotMaster.forceStop();
+      ampMotor.forceStop();
+    }
+    leftFlywheel.setCharacterizing(characterizing);
+    rightFlywheel.setCharacterizing(characterizing);
+    pivotMaster.setCharacterizing(characterizing);
+    ampMotor.setCharacterizing(characterizing);
+  }
+
   private void log() {
-    SteelTalonsLogger.post("Shooter Left Speed", leftFlywheel.getVelocity());
-    SteelTalonsLogger.post("Shooter Right Speed", rightFlywheel.getVelocity());
+    leftSpeedLog.set(leftFlywheel.getVelocity());
+    rightSpeedLog.set(rightFlywheel.getVelocity());
     // SteelTalonsLogger.post("Feeder Speed", feeder.getVelocity());
-    SteelTalonsLogger.post("Pivot Position", pivotMaster.getPosition());
-    SteelTalonsLogger.post("Pivot setpiint shooter", pivotMaster.getSetPoint());
+    pivotPositionLog.set(pivotMaster.getPosition());
+    pivotSetpointLog.set(pivotMaster.getSetPoint());
     // SteelTalonsLogger.post("Amp Position", ampMotor.getPosition());
-    SteelTalonsLogger.post("FLYWHEEL RAMPED", flywheelAtGoal());
-    SteelTalonsLogger.post("Shooter Loaded", loaded());
-    SteelTalonsLogger.post("Note Ready To Shoot", inPosition());
+    flywheelRampedLog.set(flywheelAtGoal());
+    loadedLog.set(loaded());
+    readyLog.set(inPosition());
     // SteelTalonsLogger.post("top in position", !beamBreak.get());
     // SteelTalonsLogger.post("shooter flywheel at goal", flywheelAtGoal());
     // SteelTalonsLogger.post("pivot at goal", pivotAtGoal());
-    SteelTalonsLogger.post("pivot at goal 3", pivotAtGoal(3));
+    pivotAtGoalLog.set(pivotAtGoal(3));
   }
 
   public Command getHomingCommand() {
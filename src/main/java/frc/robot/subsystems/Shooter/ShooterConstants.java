@@ -33,6 +33,7 @@ public class ShooterConstants {
     public static final double FEEDER_TOLERANCE_M_S = 0.2;
     public static final Rotation2d PIVOT_TOLERANCE_RAD = new Rotation2d(Math.toRadians(0.25));
     public static final Rotation2d AMP_TOLERANCE_RAD = new Rotation2d(Math.toRadians(1.25));
+    public static final double HEADING_TOLERANCE_RAD = Math.toRadians(1.5); // robot heading vs the aim heading before feeding
 
     public static final Rotation2d SHOOTER_PIVOT_HARDSTOP = Rotation2d.fromDegrees(0.0);
     public static final Rotation2d SHOOTER_PIVOT_STOW = Rotation2d.fromDegrees(-5.0);
@@ -195,6 +196,70 @@ public class ShooterConstants {
         );
     }
 
+    public static InterpolatingDoubleTreeMap SHOOTER_TIME_OF_FLIGHT_MAP = new InterpolatingDoubleTreeMap();
+
+    public static void timeOfFlightMap() { //INPUT: meters, OUTPUT: seconds from leaving the flywheels to the speaker opening
+        // estimated from ~12 m/s average note speed at the speeds in the target map, retune from video
+        SHOOTER_TIME_OF_FLIGHT_MAP.put(
+            0.0,
+            0.02
+        );
+
+        SHOOTER_TIME_OF_FLIGHT_MAP.put(
+            1.0,
+            0.10
+        );
+
+        SHOOTER_TIME_OF_FLIGHT_MAP.put(
+            2.0,
+            0.18
+        );
+
+        SHOOTER_TIME_OF_FLIGHT_MAP.put(
+            3.0,
+            0.26
+        );
+
+        SHOOTER_TIME_OF_FLIGHT_MAP.put(
+            4.0,
+            0.34
+        );
+
+        SHOOTER_TIME_OF_FLIGHT_MAP.put(
+            5.0,
+            0.42
+        );
+
+        SHOOTER_TIME_OF_FLIGHT_MAP.put(
+            6.0,
+            0.50
+        );
+
+        SHOOTER_TIME_OF_FLIGHT_MAP.put(
+            7.0,
+            0.58
+        );
+    }
+
+    public static ShootingSolutionGrid BLUE_SHOT_GRID;
+    public static ShootingSolutionGrid RED_SHOT_GRID;
+
+    public static void shotGrids() { //built from the maps above, rebuild if they change
+        double speakerY = MiscUtil.speaker_Pose.getY();
+        BLUE_SHOT_GRID = new ShootingSolutionGrid(
+            MiscUtil.speaker_Pose.getX(), speakerY, 
+            SHOOTER_PIVOT_TARGET_MAP, SHOOTER_TIME_OF_FLIGHT_MAP, SHOOTER_OTF_OFFSET_MAP, -3.0, 3.0
+        );
+        RED_SHOT_GRID = new ShootingSolutionGrid(
+            MiscUtil.fieldWidth - MiscUtil.speaker_Pose.getX(), speakerY, 
+            SHOOTER_PIVOT_TARGET_MAP, SHOOTER_TIME_OF_FLIGHT_MAP, SHOOTER_OTF_OFFSET_MAP, -3.0, 3.0
+        );
+    }
+
+    public static ShootingSolutionGrid shotGrid(boolean blue) {
+        return blue ? BLUE_SHOT_GRID : RED_SHOT_GRID;
+    }
+
     public static void configureShooter() {
 
         shooterPivotConfig.name = "Shooter Pivot";
@@ -257,16 +322,40 @@ public class ShooterConstants {
         ampPivotConfig.idleMode = IdleMode.kCoast;
 
         shooterPivotConfig.kP = 40.0;
+        shooterPivotConfig.servoControl = STSmaxConfig.ServoControl.kOnboard; // chatters at kP 40 from the RIO
+        // kV from free speed, the rest are estimates until the SysId arm fit. Horizontal at max rotation
+        shooterPivotConfig.kS = 0.15;
+        shooterPivotConfig.kG = 0.3;
+        shooterPivotConfig.kV = 12.0 / shooterPivotConfig.getStandardMaxVelocity();
+        shooterPivotConfig.kA = 0.03;
+        shooterPivotConfig.gravityOffsetRad = -SHOOTER_PIVOT_MAX_ROT.getRadians();
         feederRollerConfig.kP = 0.0;
         feederRollerConfig.kFF = 1.0 / feederRollerConfig.getStandardMaxVelocity();
         shooterLeftFlywheelConfig.kP = 0.0;
         shooterLeftFlywheelConfig.kFF = 1.0 / 5676.0;
         shooterRightFlywheelConfig.kP = 0.0;
         shooterRightFlywheelConfig.kFF = 1.0 / 5676.0;
+        // kV from the same 12V at free speed as kFF, kA assumes a ~0.3s spin up time constant until SysId runs
+        shooterLeftFlywheelConfig.kV = 12.0 / 5676.0;
+        shooterLeftFlywheelConfig.kA = shooterLeftFlywheelConfig.kV * 0.3;
+        shooterRightFlywheelConfig.kV = 12.0 / 5676.0;
+        shooterRightFlywheelConfig.kA = shooterRightFlywheelConfig.kV * 0.3;
+        // matches the kFlywheel status 1 period, stepping faster would only reread the same velocity
+        shooterLeftFlywheelConfig.notifierPeriodS = 0.01;
+        shooterRightFlywheelConfig.notifierPeriodS = 0.01;
         ampPivotConfig.kP = 10.0;
+        ampPivotConfig.servoControl = STSmaxConfig.ServoControl.kRio;
+        // same as the shooter pivot, horizontal at the hardstop
+        ampPivotConfig.kS = 0.1;
+        ampPivotConfig.kG = 0.2;
+        ampPivotConfig.kV = 12.0 / ampPivotConfig.getStandardMaxVelocity();
+        ampPivotConfig.kA = 0.01;
+        ampPivotConfig.gravityOffsetRad = AMP_HARDSTOP.getRadians();
 
         targetMap();
         targetOffsetMap();
+        timeOfFlightMap();
+        shotGrids();
 
     }
 
@@ -0,0 +1,137 @@
+package frc.robot.subsystems.Shooter;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.interpolation.InterpolatingDoubleTreeMap;
+import edu.wpi.first.math.interpolation.InterpolatingTreeMap;
+import frc.robot.util.MiscUtil;
+
+/**
+ * The shooter maps sampled once at boot onto a grid covering the whole field for one alliance's
+ * speaker. Each node holds the pivot angle (translation angle correction already applied), both
+ * flywheel speeds, the heading that faces the speaker and the note's time of flight, interleaved
+ * in one flat array. Lookups are a bilinear blend of the four surrounding nodes and don't allocate.
+ */
+public class ShootingSolutionGrid {
+    public static final double CELL_SIZE_M = 0.1;
+    private static final double OFFSET_STEP_M_S = 0.05; // OTF map knots are 1 m/s apart
+
+    private static final int PIVOT = 0;
+    private static final int LEFT = 1;
+    private static final int RIGHT = 2;
+    private static final int HEADING = 3;
+    private static final int TIME_OF_FLIGHT = 4;
+    private static final int STRIDE = 5;
+
+    private final double speakerX;
+    private final double speakerY;
+    private final int cols;
+    private final int rows;
+    private final double[] nodes;
+
+    private final double offsetMinSpeed;
+    private final double[] offsetsRad;
+
+    public ShootingSolutionGrid(double speakerX, double speakerY, InterpolatingTreeMap<Double, ShootingConfiguration> pivotMap, InterpolatingDoubleTreeMap timeOfFlightMap, InterpolatingDoubleTreeMap offsetMap, double offsetMinSpeed, double offsetMaxSpeed) {
+        this.speakerX = speakerX;
+        this.speakerY = speakerY;
+        cols = (int) Math.ceil(MiscUtil.fieldWidth / CELL_SIZE_M) + 1;
+        rows = (int) Math.ceil(MiscUtil.fieldHeight / CELL_SIZE_M) + 1;
+        nodes = new double[cols * rows * STRIDE];
+
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                double dx = col * CELL_SIZE_M - speakerX;
+                double dy = row * CELL_SIZE_M - speakerY;
+                double distance = Math.hypot(dx, dy);
+                double translationAngleRad = Math.atan2(dy, dx);
+                ShootingConfiguration config = pivotMap.get(distance);
+
+                // same correction TestShooterRanging used to add every loop, 4 degrees of offset for a 60 degree angle
+                double correctionDeg = Math.abs(Math.toDegrees(translationAngleRad)) * (4.0 / 60.0) * 0.2 * (5 - distance);
+
+                int i = (row * cols + col) * STRIDE;
+                nodes[i + PIVOT] = config.getPivotAngle().getRadians() + Math.toRadians(correctionDeg);
+                nodes[i + LEFT] = config.getLeftSpeed();
+                nodes[i + RIGHT] = config.getRightSpeed();
+                nodes[i + HEADING] = translationAngleRad;
+                nodes[i + TIME_OF_FLIGHT] = timeOfFlightMap.get(distance);
+            }
+        }
+
+        this.offsetMinSpeed = offsetMinSpeed;
+        offsetsRad = new double[(int) Math.round((offsetMaxSpeed - offsetMinSpeed) / OFFSET_STEP_M_S) + 1];
+        for (int i = 0; i < offsetsRad.length; i++) {
+            offsetsRad[i] = Math.toRadians(offsetMap.get(offsetMinSpeed + i * OFFSET_STEP_M_S));
+        }
+    }
+
+    /**
+     * Fills out with the solution for a robot at (x, y) on the field, positions off the field are
+     * clamped to its edge.
+     */
+    public void sample(double x, double y, ShotSolution out) {
+        double fx = MathUtil.clamp(x / CELL_SIZE_M, 0, cols - 1);
+        double fy = MathUtil.clamp(y / CELL_SIZE_M, 0, rows - 1);
+        int col = Math.min((int) fx, cols - 2);
+        int row = Math.min((int) fy, rows - 2);
+        double tx = fx - col;
+        double ty = fy - row;
+
+        int i00 = (row * cols + col) * STRIDE;
+        int i10 = i00 + STRIDE;
+        int i01 = i00 + cols * STRIDE;
+        int i11 = i01 + STRIDE;
+
+        out.pivotRad = blend(nodes[i00 + PIVOT], nodes[i10 + PIVOT], nodes[i01 + PIVOT], nodes[i11 + PIVOT], tx, ty);
+        out.leftRPM = blend(nodes[i00 + LEFT], nodes[i10 + LEFT], nodes[i01 + LEFT], nodes[i11 + LEFT], tx, ty);
+        out.rightRPM = blend(nodes[i00 + RIGHT], nodes[i10 + RIGHT], nodes[i01 + RIGHT], nodes[i11 + RIGHT], tx, ty);
+        out.timeOfFlightS = blend(nodes[i00 + TIME_OF_FLIGHT], nodes[i10 + TIME_OF_FLIGHT], nodes[i01 + TIME_OF_FLIGHT], nodes[i11 + TIME_OF_FLIGHT], tx, ty);
+        out.distanceM = Math.hypot(x - speakerX, y - speakerY);
+
+        // blend the heading as offsets from one corner so cells straddling +-pi don't average to zero
+        double h00 = nodes[i00 + HEADING];
+        out.headingRad = MathUtil.angleModulus(h00 + blend(
+            0.0,
+            MathUtil.angleModulus(nodes[i10 + HEADING] - h00),
+            MathUtil.angleModulus(nodes[i01 + HEADING] - h00),
+            MathUtil.angleModulus(nodes[i11 + HEADING] - h00),
+            tx, ty
+        ));
+    }
+
+    // Same as sample, but at the point on the robot's bearing from the speaker that is distance away.
+    // Lets a vision range replace the pose range without giving up the field grid.
+    public void sampleAtDistance(double x, double y, double distance, ShotSolution out) {
+        double dx = x - speakerX;
+        double dy = y - speakerY;
+        double poseDistance = Math.hypot(dx, dy);
+        if (poseDistance < 1e-9) {
+            sample(x, y, out);
+            return;
+        }
+        double scale = distance / poseDistance;
+        sample(speakerX + dx * scale, speakerY + dy * scale, out);
+    }
+
+    // Pivot offset for moving perpendicular to the speaker, what SHOOTER_OTF_OFFSET_MAP gives in degrees
+    public double offsetRad(double perpSpeed) {
+        double f = MathUtil.clamp((perpSpeed - offsetMinSpeed) / OFFSET_STEP_M_S, 0, offsetsRad.length - 1);
+        int i = Math.min((int) f, offsetsRad.length - 2);
+        double t = f - i;
+        return offsetsRad[i] + (offsetsRad[i + 1] - offsetsRad[i]) * t;
+    }
+
+    public double getSpeakerX() {
+        return speakerX;
+    }
+
+    public double getSpeakerY() {
+        return speakerY;
+    }
+
+    private static double blend(double v00, double v10, double v01, double v11, double tx, double ty) {
+        double bottom = v00 + (v10 - v00) * tx;
+        double top = v01 + (v11 - v01) * tx;
+        return bottom + (top - bottom) * ty;
+    }
+}
@@ -0,0 +1,20 @@
+package frc.robot.subsystems.Shooter;
+
+// Filled in place by ShootingSolutionGrid lookups so nothing is allocated per loop
+public class ShotSolution {
+    public double pivotRad;
+    public double leftRPM;
+    public double rightRPM;
+    public double headingRad; // robot heading that points the shooter at the speaker
+    public double timeOfFlightS;
+    public double distanceM; // to the speaker, or to the virtual target once ShotSolver has run
+
+    // set by ShotSolver
+    public double aimOffsetRad; // headingRad minus the heading that faces the real speaker
+    public double headingRateRadPerSec; // how fast headingRad moves at the current velocity
+
+    @Override
+    public String toString() {
+        return "Pivot angle(deg): " + Math.toDegrees(pivotRad) + "\nLeft: " + leftRPM + "\nRight: " + rightRPM + "\nHeading(deg): " + Math.toDegrees(headingRad);
+    }
+}
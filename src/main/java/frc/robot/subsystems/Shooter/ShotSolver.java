@@ -0,0 +1,65 @@
+package frc.robot.subsystems.Shooter;
+
+import edu.wpi.first.math.MathUtil;
+import frc.robot.util.RobotState;
+
+/**
+ * Shoot on the move by aiming at a virtual target. The note keeps the robot's field velocity after
+ * it leaves, so over its time of flight it drifts by velocity * tof, shooting at the speaker moved
+ * back by that much cancels it out. The time of flight depends on the distance to the virtual
+ * target, so the two are iterated until they agree, which takes two or three passes at driving
+ * speeds. Every lookup goes through the shot grid so nothing is allocated.
+ */
+public class ShotSolver {
+    private static final int MAX_ITERATIONS = 5;
+    private static final double TOF_TOLERANCE_S = 1e-3;
+
+    /**
+     * Solves for the robot as RobotState last saw it. A finite rangeM (a vision range to the
+     * speaker) replaces the pose range along the same bearing, pass NaN when there isn't one and
+     * the pose is used on its own.
+     */
+    public static void solve(double rangeM, ShotSolution out) {
+        solve(
+            ShooterConstants.shotGrid(RobotState.isBlue()),
+            RobotState.getPoseX(), RobotState.getPoseY(),
+            RobotState.getFieldVx(), RobotState.getFieldVy(),
+            rangeM, out
+        );
+    }
+
+    public static void solve(ShootingSolutionGrid grid, double x, double y, double fieldVx, double fieldVy, double rangeM, ShotSolution out) {
+        double speakerX = grid.getSpeakerX();
+        double speakerY = grid.getSpeakerY();
+        double dx = x - speakerX;
+        double dy = y - speakerY;
+        double poseDistance = Math.hypot(dx, dy);
+        if (Double.isFinite(rangeM) && rangeM > 0 && poseDistance > 1e-9) {
+            double scale = rangeM / poseDistance;
+            dx *= scale;
+            dy *= scale;
+        }
+
+        // shooting at speaker - v * t from the robot is the same shot as shooting at the speaker
+        // from robot + v * t, which is what the grid knows about
+        double tof = 0.0;
+        double shiftedDx = dx;
+        double shiftedDy = dy;
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            shiftedDx = dx + fieldVx * tof;
+            shiftedDy = dy + fieldVy * tof;
+            grid.sample(speakerX + shiftedDx, speakerY + shiftedDy, out);
+            double error = out.timeOfFlightS - tof;
+            tof = out.timeOfFlightS;
+            if (Math.abs(error) < TOF_TOLERANCE_S) {
+                break;
+            }
+        }
+
+        double distanceSq = shiftedDx * shiftedDx + shiftedDy * shiftedDy;
+        out.distanceM = Math.sqrt(distanceSq);
+        out.aimOffsetRad = MathUtil.angleModulus(out.headingRad - Math.atan2(dy, dx));
+        // d/dt atan2(dy, dx) with the virtual target held still
+        out.headingRateRadPerSec = distanceSq > 1e-9 ? (shiftedDx * fieldVy - shiftedDy * fieldVx) / distanceSq : 0.0;
+    }
+}
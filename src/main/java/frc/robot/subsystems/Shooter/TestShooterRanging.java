@@ -1,5 +1,6 @@
 package frc.robot.subsystems.Shooter;
 
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.controller.ProfiledPIDController;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
@@ -11,8 +12,9 @@ import frc.robot.subsystems.Swerve.DrivetrainConstants;
 import frc.robot.subsystems.Swerve.SwerveDrivetrain;
 import frc.robot.subsystems.Vision.ObjectDetector;
 import frc.robot.util.LEDManager;
-import frc.robot.util.MiscUtil;
+import frc.robot.util.RobotState;
 import frc.robot.util.SteelTalonsLogger;
+import frc.robot.util.Localization.SteelTalonsLocalization;
 import frc.robot.util.LEDManager.LEDState;
 
 public class TestShooterRanging extends Command {
@@ -21,14 +23,16 @@ public class TestShooterRanging extends Command {
     private SwerveDrivetrain drivetrain;
     private ProfiledPIDController rotPID;
     private ObjectDetector tagCam;
+    private final double[] captureSample = new double[3];
+    private final ShotSolution solution = new ShotSolution();
+    private final SteelTalonsLogger.DoubleHandle timeOfFlightLog = SteelTalonsLogger.doubleHandle("shot time of flight");
+    private final SteelTalonsLogger.DoubleHandle aimOffsetLog = SteelTalonsLogger.doubleHandle("shot aim offset");
 
     private static final double kP = 1.75; //FIXME
     private static final double kI = 0.0;
     private static final double kD = 0.0;
 
-    private static final double VISION_PARALLEL_P_SCALAR = 0.47; //increase to make PID stronger during movement
-    private static final double OTF_ROT_PARALLEL = 7.5; //increase to make it compensate for parallel movement more
-    //DEGREES - this value is meant for 2 meters dist
+    private static final double MAX_SHOT_DISTANCE_M = 7.0;
 
     public TestShooterRanging() {
         shooter = Shooter.getInstance();
@@ -39,66 +43,40 @@ public class TestShooterRanging extends Command {
             DrivetrainConstants.MAX_ROTATION_SPEED_RAD_S_TELEOP * 3 
         ));
         rotPID.enableContinuousInput(-Math.PI, Math.PI);
-        rotPID.setTolerance(Math.toRadians(1.5));
+        rotPID.setTolerance(ShooterConstants.HEADING_TOLERANCE_RAD);
 
     }
 
     @Override
     public void initialize() {
-        rotPID.reset(drivetrain.getRotation().getRadians());
+        // execute measures the estimated field heading, not the gyro yaw, so start the profile there
+        rotPID.reset(RobotState.getHeadingRad(), RobotState.getOmega());
 
         LEDManager.getInstance().setState(LEDState.kTargeting);
     }
 
     @Override
     public void execute() {
-        double[] targetingInformation = MiscUtil.targetingInformation();
-        double parallelSpeed = targetingInformation[0];
-        double perpSpeed = targetingInformation[1];
-        // double distance = targetingInformation[2];
-        double distance = RobotContainer.getTagCam().targetVisible() ? RobotContainer.getTagCam().speakerDist() : targetingInformation[2];
-        Rotation2d rotError = Rotation2d.fromRadians(targetingInformation[3]);
-        Rotation2d translationAngle = Rotation2d.fromRadians(targetingInformation[4]);
-
-        Rotation2d adjustmentSetpoint = new Rotation2d();
-        ShootingConfiguration config;
-        // ShootingConfiguration config = ShooterConstants.SHOOTER_PIVOT_TARGET_MAP.get(distance).adjustBy(
-        //     new Rotation2d(), 
-        //     0.0,
-        //     0.0 
-        // );
-
-        adjustmentSetpoint = rotationalOTF(parallelSpeed, distance); //FIXME WHERE THE MATH IS
-        if (distance < 7.0) {
-            config = ShooterConstants.SHOOTER_PIVOT_TARGET_MAP.get(distance).adjustBy(
-                Rotation2d.fromDegrees(ShooterConstants.SHOOTER_OTF_OFFSET_MAP.get(perpSpeed)).
-                plus(Rotation2d.fromDegrees(Math.abs(translationAngle.getDegrees()) * (4.0 / 60.0) * 0.2 * (5 - distance))), //4 degrees of offset for 60 degree angle
-                0.0,
-                0.0 
-            );   
-            
+        boolean visible = tagCam.targetVisible();
+        // vision range when there is one, otherwise the solver falls back to the pose range
+        ShotSolver.solve(visible ? tagCam.speakerDist() : Double.NaN, solution);
+
+        if (solution.distanceM < MAX_SHOT_DISTANCE_M) {
+            shooter.setPivotSetpoint(Rotation2d.fromRadians(solution.pivotRad));
+            shooter.setFlywheelSetpoint(solution.leftRPM, solution.rightRPM);
         } else {
-            config = new ShootingConfiguration(
-                ShooterConstants.SHOOTER_PIVOT_STOW, 
-                5500, 
-                5500
-            );
+            shooter.setPivotSetpoint(ShooterConstants.SHOOTER_PIVOT_STOW);
+            shooter.setFlywheelSetpoint(5500, 5500);
         }
 
-        SteelTalonsLogger.post("angle offset anglesss",(Rotation2d.fromDegrees(Math.abs(translationAngle.getDegrees()) * (3.0 / 60.0)).getDegrees()));
-        SteelTalonsLogger.post("movement angle offset",Rotation2d.fromDegrees(ShooterConstants.SHOOTER_OTF_OFFSET_MAP.get(perpSpeed)).getDegrees());
-
-        shooter.setShootingConfigSetpoints(config);
-        // shooter.setPivotSetpoint(ShooterConstants.SHOOTER_PIVOT_HANDOFF);
-        double angleEffort = tagCam.targetVisible() ? 
-            rotPID.calculate(Math.toRadians(RobotContainer.getTagCam().targetInfo()[0]), adjustmentSetpoint.getRadians()) : 
-            -rotPID.calculate(rotError.getRadians(), adjustmentSetpoint.getRadians());
+        // the tag gives the speaker's bearing directly, the solver only adds the lead for moving
+        double targetHeading = visible ? 
+            MathUtil.angleModulus(targetBearingRad() + solution.aimOffsetRad) : 
+            solution.headingRad;
+        double angleEffort = rotPID.calculate(RobotState.getHeadingRad(), targetHeading) + solution.headingRateRadPerSec;
 
-        if (tagCam.targetVisible()) {
-            rotPID.setP(Math.abs(parallelSpeed) * VISION_PARALLEL_P_SCALAR + kP);
-        } else {
-            rotPID.setP(kP);
-        }
+        timeOfFlightLog.set(solution.timeOfFlightS);
+        aimOffsetLog.set(Math.toDegrees(solution.aimOffsetRad));
         
         drivetrain.adjustSpeeds(new ChassisSpeeds(0, 0, 
             angleEffort - drivetrain.getSetpoint().omegaRadiansPerSecond
@@ -119,8 +97,13 @@ public class TestShooterRanging extends Command {
         LEDManager.getInstance().resetStates();
     }
 
-    public Rotation2d rotationalOTF(double parallelSpeed, double distance) {
-        double yVal = Math.sin(Math.toRadians(parallelSpeed * OTF_ROT_PARALLEL)) * distance;
-        return new Rotation2d(distance, yVal); //basically makes it so that based on distance, the angle becomes less or more
+    // tx is from when the image was captured, turn it into the target's field bearing using the
+    // heading at capture time
+    private double targetBearingRad() {
+        double txRad = Math.toRadians(tagCam.getTx());
+        if (!SteelTalonsLocalization.getInstance().getPoseHistory().sample(tagCam.getCaptureTimestamp(), captureSample)) {
+            return MathUtil.angleModulus(RobotState.getHeadingRad() - txRad);
+        }
+        return MathUtil.angleModulus(captureSample[2] - txRad); // tx is positive to the right
     }
 }
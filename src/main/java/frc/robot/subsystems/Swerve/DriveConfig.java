@@ -5,16 +5,28 @@ import java.util.Optional;
 import edu.wpi.first.math.geometry.Rotation2d;
 
 public class DriveConfig {
+    // how the drive TalonFXs close the wheel velocity loop
+    public enum DriveMode {
+        kVelocityVoltage, // slot 0, volts from kS/kV
+        kTorqueCurrentFOC // slot 1, amps from kS/kA, needs Phoenix Pro on the drive motors
+    }
+
     private Optional<Rotation2d> angleLock = Optional.empty();
     private double speedScalar = 1.0;
     private double deadZone = 0.0;
     private boolean fieldOp = true;
+    private DriveMode driveMode = DriveMode.kVelocityVoltage;
 
     public DriveConfig(Optional<Rotation2d> angleLock, double speedScalar, double deadZone, boolean fieldOp) {
+        this(angleLock, speedScalar, deadZone, fieldOp, DriveMode.kVelocityVoltage);
+    }
+
+    public DriveConfig(Optional<Rotation2d> angleLock, double speedScalar, double deadZone, boolean fieldOp, DriveMode driveMode) {
         this.angleLock = angleLock;
         this.speedScalar = speedScalar;
         this.fieldOp = fieldOp;
         this.deadZone = deadZone;
+        this.driveMode = driveMode;
     }
 
     public void setAngleLock(Optional<Rotation2d> angleLock) {
@@ -33,6 +45,10 @@ public class DriveConfig {
         this.fieldOp = fieldOp;
     }
 
+    public void setDriveMode(DriveMode driveMode) {
+        this.driveMode = driveMode;
+    }
+
     public Optional<Rotation2d> getAngleLock() {
         return angleLock;
     }
@@ -49,5 +65,9 @@ public class DriveConfig {
         return fieldOp;
     }
 
+    public DriveMode getDriveMode() {
+        return driveMode;
+    }
+
     
 }
@@ -0,0 +1,123 @@
+package frc.robot.subsystems.Swerve;
+
+import java.util.Optional;
+
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.Command;
+
+/**
+ * Drives straight forward and back once per DriveMode, from rest up to most of top speed and
+ * back to rest, and prints how long each run took to reach 95% of that speed and how far the measured speed was
+ * from what the setpoint generator commanded. Needs about 5m of clear carpet in front of the
+ * robot. Picked from the SysId chooser and run in test mode, where periodic leaves the modules alone.
+ */
+public class DriveModeBenchmark extends Command {
+    private static final double SETTLE_S = 1.0;
+    private static final double RUN_S = 1.5;
+    private static final double TARGET_SPEED_M_S = DrivetrainConstants.MAX_PHYSICAL_SPEED_M_S * 0.9;
+    private static final double REACHED_FRACTION = 0.95;
+    private static final DriveConfig.DriveMode[] MODES = DriveConfig.DriveMode.values();
+
+    private final SwerveDrivetrain drivetrain;
+    private final DriveConfig[] configs = new DriveConfig[MODES.length];
+    private final ChassisSpeeds request = new ChassisSpeeds();
+    private final Timer timer = new Timer();
+    private DriveConfig previousConfig;
+
+    // one run is one mode in one direction
+    private int run;
+    private double reachedS;
+    private double errorSqSum;
+    private double maxError;
+    private int samples;
+    private boolean reported;
+
+    public DriveModeBenchmark(SwerveDrivetrain drivetrain) {
+        addRequirements(drivetrain);
+        this.drivetrain = drivetrain;
+        for (int i = 0; i < MODES.length; i++) {
+            configs[i] = new DriveConfig(Optional.empty(), 1.0, 0.0, false, MODES[i]);
+        }
+    }
+
+    @Override
+    public void initialize() {
+        previousConfig = drivetrain.getDriveConfig();
+        run = 0;
+        resetRun();
+        timer.restart();
+    }
+
+    @Override
+    public void execute() {
+        if (timer.get() >= RUN_S + SETTLE_S) {
+            run++;
+            resetRun();
+            timer.restart();
+            if (isFinished()) {
+                return;
+            }
+        }
+        double t = timer.get();
+        double direction = run % 2 == 0 ? 1.0 : -1.0;
+        drivetrain.setDriveConfig(configs[run / 2]);
+
+        if (t < RUN_S) {
+            // periodic measured this loop, the generator still holds last loop's command
+            double measured = drivetrain.getVelocityVector().vxMetersPerSecond * direction;
+            double commanded = drivetrain.getSetpointGenerator().getVx() * direction;
+            double error = commanded - measured;
+            errorSqSum += error * error;
+            maxError = Math.max(maxError, Math.abs(error));
+            samples++;
+            if (Double.isNaN(reachedS) && measured >= TARGET_SPEED_M_S * REACHED_FRACTION) {
+                reachedS = t;
+            }
+            request.vxMetersPerSecond = TARGET_SPEED_M_S * direction;
+        } else {
+            if (!reported) {
+                report();
+            }
+            request.vxMetersPerSecond = 0.0;
+        }
+        request.vyMetersPerSecond = 0.0;
+        request.omegaRadiansPerSecond = 0.0;
+        drivetrain.setSpeedsAuton(request);
+    }
+
+    @Override
+    public boolean isFinished() {
+        return run >= MODES.length * 2;
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        // nothing drives the modules in test mode once this ends, so stop them outright
+        SwerveModuleState[] stopped = new SwerveModuleState[drivetrain.getModules().size()];
+        for (int i = 0; i < stopped.length; i++) {
+            stopped[i] = new SwerveModuleState();
+        }
+        drivetrain.setStatesAuton(stopped);
+        drivetrain.setDriveConfig(previousConfig);
+    }
+
+    private void resetRun() {
+        reachedS = Double.NaN;
+        errorSqSum = 0.0;
+        maxError = 0.0;
+        samples = 0;
+        reported = false;
+    }
+
+    private void report() {
+        reported = true;
+        System.err.println(String.format(
+            "%s %s: %.0f%% of %.2f m/s after %s, tracking error rms %.3f m/s max %.3f m/s",
+            MODES[run / 2], run % 2 == 0 ? "forward" : "back", REACHED_FRACTION * 100.0, TARGET_SPEED_M_S,
+            Double.isNaN(reachedS) ? "never" : String.format("%.3fs", reachedS),
+            samples > 0 ? Math.sqrt(errorSqSum / samples) : 0.0, maxError
+        ));
+    }
+}
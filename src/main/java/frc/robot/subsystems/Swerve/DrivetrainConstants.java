@@ -6,9 +6,9 @@ import com.ctre.phoenix6.configs.CANcoderConfiguration;
 import com.ctre.phoenix6.configs.CurrentLimitsConfigs;
 import com.ctre.phoenix6.configs.FeedbackConfigs;
 import com.ctre.phoenix6.configs.Slot0Configs;
+import com.ctre.phoenix6.configs.Slot1Configs;
 import com.ctre.phoenix6.configs.TalonFXConfiguration;
 import com.ctre.phoenix6.hardware.CANcoder;
-import com.ctre.phoenix6.hardware.TalonFX;
 import com.ctre.phoenix6.signals.AbsoluteSensorRangeValue;
 import com.ctre.phoenix6.signals.InvertedValue;
 import com.ctre.phoenix6.signals.NeutralModeValue;
@@ -18,6 +18,7 @@ import com.revrobotics.CANSparkBase.IdleMode;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.system.plant.DCMotor;
 import edu.wpi.first.math.util.Units;
 import frc.robot.util.STSmaxConfig;
 
@@ -31,9 +32,16 @@ public class DrivetrainConstants {
             new Translation2d(WHEELBASE / 2, -TRACKWIDTH / 2),
             new Translation2d(-WHEELBASE / 2, TRACKWIDTH / 2),
             new Translation2d(-WHEELBASE / 2, -TRACKWIDTH / 2));
+    // same modules in the same order, closed form on primitives for the per loop control path
+    public static final SquareSwerveKinematics SQUARE_SWERVE_KINEMATICS = new SquareSwerveKinematics(WHEELBASE / 2, TRACKWIDTH / 2);
 
     public static final int PIGEON_CAN_ID = 16;
 
+    public static final double DRIVE_GEAR_RATIO = (50.0 / 16.0) * (16.0 / 28.0) * (45.0 / 15.0);
+    public static final DCMotor DRIVE_MOTOR = DCMotor.getKrakenX60Foc(1);
+    public static final double ROBOT_MASS_KG = 60.0; // with battery and bumpers, estimate
+    public static final double MAX_DRIVE_TORQUE_CURRENT_A = 80.0; // about where a quarter of the robot's weight breaks traction
+
     public static final double MAX_PHYSICAL_SPEED_M_S = (5800 * (16.0 / 50.0) * (28.0 / 16.0) * (15.0 / 45.0)
             * WHEEL_DIAMETER_METERS * Math.PI) / (60.0);
     public static final double MAX_ACCEL = MAX_PHYSICAL_SPEED_M_S * 5; // BEING USED IN PATH FINDER
@@ -59,6 +67,11 @@ public class DrivetrainConstants {
 
     public static final double MAX_TRANSLATION_SPEED_M_PER_LOOP = 0.5;
 
+    // SwerveSetpointGenerator limits
+    public static final double MAX_STEER_RATE_RAD_S = Units.rotationsPerMinuteToRadiansPerSecond(5676 * (7.0 / 150.0)) * 0.8;
+    public static final double MAX_MODULE_ACCEL_M_S2 = 10.0; // about what the tread holds on carpet
+    public static final double MAX_CHASSIS_JERK_M_S3 = 150.0;
+
     public static final int FRONT_LEFT_CANCODER_ID = 12;
     public static final int FRONT_RIGHT_CANCODER_ID = 13;
     public static final int BACK_LEFT_CANCODER_ID = 14;
@@ -102,27 +115,35 @@ public class DrivetrainConstants {
         BACK_RIGHT_STEER.id = 8;
     }
 
-    public static void configureDriveTalon(TalonFX motor) {
-        Slot0Configs velConstants = new Slot0Configs();
+    // Fills in everything on top of the per module inversion so the talon gets a single apply
+    public static TalonFXConfiguration configureDriveTalon(TalonFXConfiguration config) {
+        Slot0Configs velConstants = config.Slot0;
         velConstants.kP = 0.1; // FIXME
         velConstants.kS = 0.0; // FIXME
         velConstants.kV = 12 / (MAX_PHYSICAL_SPEED_M_S);
-        motor.getConfigurator().apply(velConstants);
 
-        FeedbackConfigs feedbackConfigs = new FeedbackConfigs();
-        feedbackConfigs.SensorToMechanismRatio = (50.0 / 16.0) * (16.0 / 28.0) * (45.0 / 15.0);
-        motor.getConfigurator().apply(feedbackConfigs);
+        // VelocityTorqueCurrentFOC, in amps per wheel rot/s. kA is the current that accelerates a quarter of the robot
+        Slot1Configs torqueConstants = config.Slot1;
+        torqueConstants.kP = 5.0; // FIXME
+        torqueConstants.kS = 2.0; // FIXME
+        torqueConstants.kA = (ROBOT_MASS_KG / 4.0) * (Math.PI * WHEEL_DIAMETER_METERS) * (WHEEL_DIAMETER_METERS / 2.0)
+            / DRIVE_GEAR_RATIO / DRIVE_MOTOR.KtNMPerAmp;
+        config.TorqueCurrent.PeakForwardTorqueCurrent = MAX_DRIVE_TORQUE_CURRENT_A;
+        config.TorqueCurrent.PeakReverseTorqueCurrent = -MAX_DRIVE_TORQUE_CURRENT_A;
 
-        CurrentLimitsConfigs currConfigs = new CurrentLimitsConfigs();
+        FeedbackConfigs feedbackConfigs = config.Feedback;
+        feedbackConfigs.SensorToMechanismRatio = DRIVE_GEAR_RATIO;
+
+        CurrentLimitsConfigs currConfigs = config.CurrentLimits;
         currConfigs.StatorCurrentLimitEnable = true;
         currConfigs.SupplyCurrentLimitEnable = true;
         currConfigs.StatorCurrentLimit = 60;
         currConfigs.SupplyCurrentLimit = 60;
         currConfigs.SupplyCurrentThreshold = 80;
         currConfigs.SupplyTimeThreshold = 0.2;
-        motor.getConfigurator().apply(currConfigs);
 
-        motor.setNeutralMode(NeutralModeValue.Brake);
+        config.MotorOutput.NeutralMode = NeutralModeValue.Brake;
+        return config;
     }
 
     public static STSmaxConfig configureDriveNeo(STSmaxConfig config) {
@@ -150,6 +171,7 @@ public class DrivetrainConstants {
         config.kD = 0.15; // 1.6
         config.maxVel = (5676 * config.gearing * 2 * Math.PI) / (60.0);
         config.maxAccel = config.maxVel * 1000;
+        config.kV = 12.0 / config.maxVel; // steer rate feedforward, volts per rad/s
         config.inverted = true;
         config.idleMode = IdleMode.kBrake;
         return config;
@@ -0,0 +1,91 @@
+package frc.robot.subsystems.Swerve;
+
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+
+/**
+ * SwerveDriveKinematics worked out by hand for four modules at (+-x, +-y) in the same FL, FR, BL,
+ * BR order as SWERVE_DRIVE_KINEMATICS. Module velocity is (vx - omega * y, vy + omega * x). The
+ * layout is symmetric, so the least squares inverse WPILib gets from a pseudo inverse falls apart
+ * into averages: vx and vy are the mean module velocity and omega is the mean tangential velocity
+ * over the module radius. Results go into caller supplied arrays and objects, nothing allocates.
+ */
+public class SquareSwerveKinematics {
+    public static final int MODULES = 4;
+
+    private final double[] moduleX;
+    private final double[] moduleY;
+    private final double radiusSq; // x^2 + y^2, the same for every module
+
+    public SquareSwerveKinematics(double halfWheelbase, double halfTrackwidth) {
+        moduleX = new double[] {halfWheelbase, halfWheelbase, -halfWheelbase, -halfWheelbase};
+        moduleY = new double[] {halfTrackwidth, -halfTrackwidth, halfTrackwidth, -halfTrackwidth};
+        radiusSq = halfWheelbase * halfWheelbase + halfTrackwidth * halfTrackwidth;
+    }
+
+    public double getModuleX(int module) {
+        return moduleX[module];
+    }
+
+    public double getModuleY(int module) {
+        return moduleY[module];
+    }
+
+    public void toModuleVelocities(double vx, double vy, double omega, double[] outVx, double[] outVy) {
+        for (int i = 0; i < MODULES; i++) {
+            outVx[i] = vx - omega * moduleY[i];
+            outVy[i] = vy + omega * moduleX[i];
+        }
+    }
+
+    /**
+     * Same as toSwerveModuleStates. When every speed is zero the speeds are zeroed and the angles
+     * are left alone, the way WPILib keeps each module's last heading.
+     */
+    public void toModuleStates(double vx, double vy, double omega, double[] outSpeed, double[] outAngleRad) {
+        if (vx == 0.0 && vy == 0.0 && omega == 0.0) {
+            for (int i = 0; i < MODULES; i++) {
+                outSpeed[i] = 0.0;
+            }
+            return;
+        }
+        for (int i = 0; i < MODULES; i++) {
+            double x = vx - omega * moduleY[i];
+            double y = vy + omega * moduleX[i];
+            outSpeed[i] = Math.hypot(x, y);
+            outAngleRad[i] = Math.atan2(y, x);
+        }
+    }
+
+    public void toChassisSpeeds(double[] moduleVx, double[] moduleVy, ChassisSpeeds out) {
+        double sumVx = 0.0;
+        double sumVy = 0.0;
+        double sumTangential = 0.0;
+        for (int i = 0; i < MODULES; i++) {
+            sumVx += moduleVx[i];
+            sumVy += moduleVy[i];
+            sumTangential += moduleX[i] * moduleVy[i] - moduleY[i] * moduleVx[i];
+        }
+        out.vxMetersPerSecond = sumVx / MODULES;
+        out.vyMetersPerSecond = sumVy / MODULES;
+        out.omegaRadiansPerSecond = sumTangential / (MODULES * radiusSq);
+    }
+
+    // Rotation2d already holds its cos and sin, so this doesn't need any trig
+    public void toChassisSpeeds(SwerveModuleState[] states, ChassisSpeeds out) {
+        double sumVx = 0.0;
+        double sumVy = 0.0;
+        double sumTangential = 0.0;
+        for (int i = 0; i < MODULES; i++) {
+            double speed = states[i].speedMetersPerSecond;
+            double x = speed * states[i].angle.getCos();
+            double y = speed * states[i].angle.getSin();
+            sumVx += x;
+            sumVy += y;
+            sumTangential += moduleX[i] * y - moduleY[i] * x;
+        }
+        out.vxMetersPerSecond = sumVx / MODULES;
+        out.vyMetersPerSecond = sumVy / MODULES;
+        out.omegaRadiansPerSecond = sumTangential / (MODULES * radiusSq);
+    }
+}
@@ -3,6 +3,8 @@ package frc.robot.subsystems.Swerve;
 import java.util.List;
 import java.util.Optional;
 
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusSignal;
 import com.ctre.phoenix6.hardware.Pigeon2;
 
 import edu.wpi.first.math.controller.ProfiledPIDController;
@@ -13,59 +15,108 @@ import edu.wpi.first.math.kinematics.SwerveDriveWheelPositions;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.math.trajectory.TrapezoidProfile.Constraints;
-import edu.wpi.first.math.util.Units;
 import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.CommandXboxController;
+import frc.robot.util.CANFramePolicy;
+import frc.robot.util.DeviceInitializer;
+import frc.robot.util.LoopProfiler;
 import frc.robot.util.SteelTalonsLogger;
+import frc.robot.util.Localization.OdometryThread;
+import frc.robot.util.Replay.InputsTable;
+import frc.robot.util.Replay.LoggableInputs;
+import frc.robot.util.Replay.Replay;
 
 public class SwerveDrivetrain extends SubsystemBase {
     
     public static SwerveDrivetrain instance;
+    private static final double MAX_DRIVE_GAP_S = 0.1; // longer than this between drive calls starts the generator over
+    private static final String[] MODULE_INPUT_KEYS = {"Drive/FrontLeft", "Drive/FrontRight", "Drive/BackLeft", "Drive/BackRight"};
     private Pigeon2 gyro;
     private List<SwerveModule> modules;
     private ChassisSpeeds setPoint = new ChassisSpeeds(); // X: m/s - Y: m/s - Theta: rad/s
     private ChassisSpeeds adjustment = new ChassisSpeeds();
     private DriveConfig driveConfig = DrivetrainConstants.DEFAULT_DRIVE_CONFIG;
     private ProfiledPIDController rotController;
+    private SwerveSetpointGenerator setpointGenerator;
+    private double lastDriveTimestamp = Double.NaN;
+    private int profilerSlot;
+
+    // preallocated so the steady-state control path doesn't generate garbage
+    private final ChassisSpeeds commandedSpeeds = new ChassisSpeeds();
+    private final ChassisSpeeds measuredSpeeds = new ChassisSpeeds();
+    private final ChassisSpeeds driveSpeeds = new ChassisSpeeds();
+    private final double[] measuredModuleVx = new double[SquareSwerveKinematics.MODULES];
+    private final double[] measuredModuleVy = new double[SquareSwerveKinematics.MODULES];
+    private final double[] measuredHeadingRad = new double[SquareSwerveKinematics.MODULES];
+    private boolean rotLocked = false;
+    private SwerveModulePosition[] modulePositions;
+    private SwerveDriveWheelPositions wheelPositions;
+
+    private StatusSignal<Double> yaw;
+    private StatusSignal<Double> yawRate;
+    private BaseStatusSignal[] allSignals; // every module's signals plus the gyro, refreshed in one call
+    private final GyroInputs gyroInputs = new GyroInputs();
+    // built from gyroInputs on demand, only localization needs a Rotation2d
+    private double cachedYawDeg = Double.NaN;
+    private Rotation2d cachedRotation = new Rotation2d();
+    private final SteelTalonsLogger.DoubleHandle setpointXLog = SteelTalonsLogger.doubleHandle("Drivetrain Setpoint X");
+    private final SteelTalonsLogger.DoubleHandle setpointYLog = SteelTalonsLogger.doubleHandle("Drivetrain Setpoint Y");
+    private final SteelTalonsLogger.DoubleHandle setpointThetaLog = SteelTalonsLogger.doubleHandle("Drivetrain Setpoint Theta");
+    private final SteelTalonsLogger.DoubleHandle generatedXLog = SteelTalonsLogger.doubleHandle("Drivetrain Generated X");
+    private final SteelTalonsLogger.DoubleHandle generatedYLog = SteelTalonsLogger.doubleHandle("Drivetrain Generated Y");
+    private final SteelTalonsLogger.DoubleHandle generatedThetaLog = SteelTalonsLogger.doubleHandle("Drivetrain Generated Theta");
+    private final SteelTalonsLogger.DoubleHandle xSpeedLog = SteelTalonsLogger.doubleHandle("x speed");
+    private final SteelTalonsLogger.DoubleHandle ySpeedLog = SteelTalonsLogger.doubleHandle("y speed");
 
     public SwerveDrivetrain() {
         instance = this;
-        gyro = new Pigeon2(DrivetrainConstants.PIGEON_CAN_ID);
-        gyro.reset();
+        profilerSlot = LoopProfiler.register(getName());
         DrivetrainConstants.configureMotors();
-        modules = List.of(
-            new SwerveModule(
+        // modules are independent, configure all four at once
+        List<DeviceInitializer.Task<SwerveModule>> moduleTasks = List.of(
+            DeviceInitializer.submit("Front Left Module", () -> new SwerveModule(
                 DrivetrainConstants.FRONT_LEFT_DRIVE_ID,
                 DrivetrainConstants.FRONT_LEFT_DRIVE, 
                 DrivetrainConstants.FRONT_LEFT_STEER, 
                 DrivetrainConstants.FRONT_LEFT_CANCODER_ID,
                 DrivetrainConstants.FRONT_LEFT_OFFSET
-            ), //FRONT LEFT
-            new SwerveModule(
+            )), //FRONT LEFT
+            DeviceInitializer.submit("Front Right Module", () -> new SwerveModule(
                 DrivetrainConstants.FRONT_RIGHT_DRIVE_ID,
                 DrivetrainConstants.FRONT_RIGHT_DRIVE, 
                 DrivetrainConstants.FRONT_RIGHT_STEER, 
                 DrivetrainConstants.FRONT_RIGHT_CANCODER_ID,
                 DrivetrainConstants.FRONT_RIGHT_OFFSET
-            ), //FRONT RIGHT
-            new SwerveModule(
+            )), //FRONT RIGHT
+            DeviceInitializer.submit("Back Left Module", () -> new SwerveModule(
                 DrivetrainConstants.BACK_LEFT_DRIVE_ID,
                 DrivetrainConstants.BACK_LEFT_DRIVE, 
                 DrivetrainConstants.BACK_LEFT_STEER, 
                 DrivetrainConstants.BACK_LEFT_CANCODER_ID,
                 DrivetrainConstants.BACK_LEFT_OFFSET
-            ), //BACK LEFT
-            new SwerveModule(
+            )), //BACK LEFT
+            DeviceInitializer.submit("Back Right Module", () -> new SwerveModule(
                 DrivetrainConstants.BACK_RIGHT_DRIVE_ID,
                 DrivetrainConstants.BACK_RIGHT_DRIVE, 
                 DrivetrainConstants.BACK_RIGHT_STEER, 
                 DrivetrainConstants.BACK_RIGHT_CANCODER_ID,
                 DrivetrainConstants.BACK_RIGHT_OFFSET
-            ) //BACK RIGHT
+            )) //BACK RIGHT
         );
 
+        gyro = new Pigeon2(DrivetrainConstants.PIGEON_CAN_ID);
+        gyro.reset();
+
+        SwerveModule[] builtModules = new SwerveModule[moduleTasks.size()];
+        for (int i = 0; i < builtModules.length; i++) {
+            builtModules[i] = moduleTasks.get(i).get();
+        }
+        modules = List.of(builtModules);
+
         rotController = new ProfiledPIDController(3.0, 0, 0, new Constraints(
             DrivetrainConstants.MAX_ROTATION_SPEED_RAD_S_TELEOP, 
             DrivetrainConstants.MAX_ROTATION_SPEED_RAD_S_TELEOP
@@ -73,14 +124,84 @@ public class SwerveDrivetrain extends SubsystemBase {
 
         rotController.enableContinuousInput(-Math.PI, Math.PI);
 
+        yaw = gyro.getYaw();
+        yawRate = gyro.getAngularVelocityZWorld();
+        BaseStatusSignal.setUpdateFrequencyForAll(OdometryThread.FREQUENCY_HZ, yaw, yawRate);
+        CANFramePolicy.optimize(gyro, false, yaw, yawRate);
+        allSignals = new BaseStatusSignal[modules.size() * 3 + 2];
+        for (int i = 0; i < modules.size(); i++) {
+            System.arraycopy(modules.get(i).getSignals(), 0, allSignals, i * 3, 3);
+        }
+        allSignals[allSignals.length - 2] = yaw;
+        allSignals[allSignals.length - 1] = yawRate;
+        refreshSignals();
+
+        modulePositions = new SwerveModulePosition[modules.size()];
+        for (int i = 0; i < modules.size(); i++) {
+            modulePositions[i] = modules.get(i).getModulePosition();
+        }
+        wheelPositions = new SwerveDriveWheelPositions(modulePositions);
+        updateMeasuredSpeeds();
+
+        setpointGenerator = new SwerveSetpointGenerator(
+            DrivetrainConstants.SQUARE_SWERVE_KINEMATICS,
+            DrivetrainConstants.MAX_PHYSICAL_SPEED_M_S,
+            DrivetrainConstants.MAX_STEER_RATE_RAD_S,
+            DrivetrainConstants.MAX_MODULE_ACCEL_M_S2,
+            DrivetrainConstants.MAX_CHASSIS_JERK_M_S3
+        );
+        setpointGenerator.reset(measuredSpeeds, measuredHeadingRad);
+    }
+
+    public static class GyroInputs implements LoggableInputs {
+        public double yawDeg; // latency compensated
+
+        @Override
+        public void toLog(InputsTable table) {
+            table.put("YawDeg", yawDeg);
+        }
+
+        @Override
+        public void fromLog(InputsTable table) {
+            yawDeg = table.get("YawDeg", yawDeg);
+        }
     }
 
     public static SwerveDrivetrain getInstance() {
         return instance;
     }
 
+    // latency compensated yaw as of the last refresh
     public Rotation2d getRotation() {
-        return gyro.getRotation2d();
+        double yawDeg = gyroInputs.yawDeg;
+        if (yawDeg != cachedYawDeg) {
+            cachedYawDeg = yawDeg;
+            cachedRotation = Rotation2d.fromDegrees(yawDeg);
+        }
+        return cachedRotation;
+    }
+
+    public double getYawRad() {
+        return Math.toRadians(gyroInputs.yawDeg);
+    }
+
+    private void refreshSignals() {
+        if (!Replay.isReplay()) {
+            BaseStatusSignal.refreshAll(allSignals);
+            gyroInputs.yawDeg = SwerveModule.latencyCompensated(yaw, yawRate);
+        }
+        Replay.processInputs("Drive/Gyro", gyroInputs);
+        for (int i = 0; i < modules.size(); i++) {
+            modules.get(i).updateInputs(MODULE_INPUT_KEYS[i]);
+        }
+    }
+
+    public Pigeon2 getGyro() {
+        return gyro;
+    }
+
+    public List<SwerveModule> getModules() {
+        return modules;
     }
 
     public void resetGyro(Rotation2d rot) {
@@ -91,13 +212,15 @@ public class SwerveDrivetrain extends SubsystemBase {
         this.driveConfig = driveConfig;
     }
 
+    public DriveConfig getDriveConfig() {
+        return driveConfig;
+    }
+
     public SwerveDriveWheelPositions getWheelPositions() {
-        return new SwerveDriveWheelPositions(new SwerveModulePosition[] {
-            modules.get(0).getModulePosition(),
-            modules.get(1).getModulePosition(),
-            modules.get(2).getModulePosition(),
-            modules.get(3).getModulePosition()
-        });
+        for (int i = 0; i < modules.size(); i++) {
+            modules.get(i).getModulePosition(); // updates the module's position object in place
+        }
+        return wheelPositions;
     }
 
     public void setSetpoint(ChassisSpeeds speeds) {
@@ -109,9 +232,9 @@ public class SwerveDrivetrain extends SubsystemBase {
     }
 
     public void setDeadzone(double deadzone) {
-        modules.forEach((m) -> {
-            m.setDeadzone(deadzone);
-        });
+        for (int i = 0; i < modules.size(); i++) {
+            modules.get(i).setDeadzone(deadzone);
+        }
     }
 
     public void adjustSpeeds(ChassisSpeeds adjustment) {
@@ -120,39 +243,49 @@ public class SwerveDrivetrain extends SubsystemBase {
 
     @Override
     public void periodic() {
+        LoopProfiler.begin(profilerSlot);
+        refreshSignals();
+        updateMeasuredSpeeds();
         Optional<Rotation2d> rotLock = driveConfig.getAngleLock();
 
         if (DriverStation.isTeleop()) {
             setDeadzone(driveConfig.getDeadZone());
 
-            ChassisSpeeds calculatedSetpoint = setPoint.times(driveConfig.getSpeedScalar());
             if (rotLock.isPresent()) {
-                calculatedSetpoint = new ChassisSpeeds(
-                    calculatedSetpoint.vxMetersPerSecond, 
-                    calculatedSetpoint.vyMetersPerSecond, 
-                    rotController.calculate(getRotation().getRadians(), rotLock.get().getRadians())
-                );
+                // reset builds a new profile state, so only when the lock engages
+                if (!rotLocked) {
+                    rotController.reset(getYawRad(), measuredSpeeds.omegaRadiansPerSecond);
+                    rotLocked = true;
+                }
+                double scalar = driveConfig.getSpeedScalar();
+                commandedSpeeds.vxMetersPerSecond = setPoint.vxMetersPerSecond * scalar;
+                commandedSpeeds.vyMetersPerSecond = setPoint.vyMetersPerSecond * scalar;
+                commandedSpeeds.omegaRadiansPerSecond = rotController.calculate(getYawRad(), rotLock.get().getRadians());
             } else {
-                calculatedSetpoint = setPoint;
-                rotController.reset(getRotation().getRadians());
-            }
-            SwerveModuleState[] states = DrivetrainConstants.SWERVE_DRIVE_KINEMATICS.toSwerveModuleStates(ChassisSpeeds.discretize(calculatedSetpoint.plus(adjustment), Units.millisecondsToSeconds(20)));
-            SwerveDriveKinematics.desaturateWheelSpeeds(states, DrivetrainConstants.MAX_PHYSICAL_SPEED_M_S);
-            
-            for (int i = 0; i < modules.size(); i++) {
-                modules.get(i).setModuleState(states[i]);
+                commandedSpeeds.vxMetersPerSecond = setPoint.vxMetersPerSecond;
+                commandedSpeeds.vyMetersPerSecond = setPoint.vyMetersPerSecond;
+                commandedSpeeds.omegaRadiansPerSecond = setPoint.omegaRadiansPerSecond;
+                rotLocked = false;
             }
+            commandedSpeeds.vxMetersPerSecond += adjustment.vxMetersPerSecond;
+            commandedSpeeds.vyMetersPerSecond += adjustment.vyMetersPerSecond;
+            commandedSpeeds.omegaRadiansPerSecond += adjustment.omegaRadiansPerSecond;
+
+            driveModules(commandedSpeeds);
         } else {
             this.setDeadzone(0.25);
+            rotLocked = false;
         }
 
         if (DriverStation.isDisabled()) {
             for (int i = 0; i < modules.size(); i++) {
                 modules.get(i).resetController();
             }
+            setpointGenerator.reset(measuredSpeeds, measuredHeadingRad);
         } 
 
         log();
+        LoopProfiler.end(profilerSlot);
     }
 
     public void setStatesAuton(SwerveModuleState[] states) {
@@ -163,45 +296,171 @@ public class SwerveDrivetrain extends SubsystemBase {
     }
 
     public void setSpeedsAuton(ChassisSpeeds speeds) {
-        SwerveModuleState[] states = DrivetrainConstants.SWERVE_DRIVE_KINEMATICS.toSwerveModuleStates(ChassisSpeeds.discretize(speeds, Units.millisecondsToSeconds(20)));
         this.setPoint = speeds;
-        SwerveDriveKinematics.desaturateWheelSpeeds(states, DrivetrainConstants.MAX_PHYSICAL_SPEED_M_S); //FIXME
+        commandedSpeeds.vxMetersPerSecond = speeds.vxMetersPerSecond;
+        commandedSpeeds.vyMetersPerSecond = speeds.vyMetersPerSecond;
+        commandedSpeeds.omegaRadiansPerSecond = speeds.omegaRadiansPerSecond;
+        driveModules(commandedSpeeds);
+    }
+
+    // teleop and auton both drive through the setpoint generator, which also desaturates
+    private void driveModules(ChassisSpeeds speeds) {
+        double now = Timer.getFPGATimestamp();
+        double dt = now - lastDriveTimestamp;
+        lastDriveTimestamp = now;
+        if (!(dt > 0.0 && dt < MAX_DRIVE_GAP_S)) {
+            setpointGenerator.reset(measuredSpeeds, measuredHeadingRad);
+            dt = TimedRobot.kDefaultPeriod;
+        }
+
+        discretize(speeds, dt);
+        setpointGenerator.generate(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond, speeds.omegaRadiansPerSecond, dt);
+        DriveConfig.DriveMode driveMode = driveConfig.getDriveMode();
         for (int i = 0; i < modules.size(); i++) {
-            modules.get(i).setModuleState(states[i]);
+            SwerveModule module = modules.get(i);
+            module.setDriveMode(driveMode);
+            module.setModuleState(setpointGenerator.getModuleSpeed(i), setpointGenerator.getModuleHeadingRad(i), setpointGenerator.getModuleAccel(i));
         }
     }
 
-    public ChassisSpeeds getVelocityVector() {
-        SwerveModuleState[] states = new SwerveModuleState[4];
+    // Same math as ChassisSpeeds.discretize (Pose2d.log of the per-loop delta) without the intermediate objects
+    private static void discretize(ChassisSpeeds speeds, double dtSeconds) {
+        double dtheta = speeds.omegaRadiansPerSecond * dtSeconds;
+        double halfDtheta = dtheta / 2.0;
+        double cosMinusOne = Math.cos(dtheta) - 1;
+        double halfThetaByTanOfHalfDtheta;
+        if (Math.abs(cosMinusOne) < 1E-9) {
+            halfThetaByTanOfHalfDtheta = 1.0 - 1.0 / 12.0 * dtheta * dtheta;
+        } else {
+            halfThetaByTanOfHalfDtheta = -(halfDtheta * Math.sin(dtheta)) / cosMinusOne;
+        }
+        double vx = speeds.vxMetersPerSecond;
+        double vy = speeds.vyMetersPerSecond;
+        speeds.vxMetersPerSecond = vx * halfThetaByTanOfHalfDtheta + vy * halfDtheta;
+        speeds.vyMetersPerSecond = vy * halfThetaByTanOfHalfDtheta - vx * halfDtheta;
+    }
+
+    private void updateMeasuredSpeeds() {
         for (int i = 0; i < modules.size(); i++) {
-            states[i] = modules.get(i).getModuleState();
+            SwerveModule module = modules.get(i);
+            double speed = module.getDriveVelocityMetersPerSec();
+            double heading = module.getSteerAngleRad();
+            measuredHeadingRad[i] = heading;
+            measuredModuleVx[i] = speed * Math.cos(heading);
+            measuredModuleVy[i] = speed * Math.sin(heading);
         }
-        ChassisSpeeds speeds = DrivetrainConstants.SWERVE_DRIVE_KINEMATICS.toChassisSpeeds(states);
-        return speeds;
+        DrivetrainConstants.SQUARE_SWERVE_KINEMATICS.toChassisSpeeds(measuredModuleVx, measuredModuleVy, measuredSpeeds);
     }
 
-    public ChassisSpeeds getDriveSpeeds(CommandXboxController controller) {
-        double[] cv = {
-            -controller.getRightY() * DrivetrainConstants.MAX_TRANSLATION_SPEED_M_S_TELEOP, 
-            -controller.getRightX() * DrivetrainConstants.MAX_TRANSLATION_SPEED_M_S_TELEOP, 
-            Math.copySign(Math.pow(Math.abs(controller.getLeftX()), 2), -controller.getLeftX()) * DrivetrainConstants.MAX_ROTATION_SPEED_RAD_S_TELEOP,
-            // -controller.getLeftX() * DrivetrainConstants.MAX_ROTATION_SPEED_RAD_S_TELEOP
-        }; 
+    // SysId, periodic only drives the modules in teleop so these hold in test mode
+    public void setSysIdDriveVoltage(double volts) {
+        for (int i = 0; i < modules.size(); i++) {
+            modules.get(i).setDriveVoltage(volts);
+        }
+    }
+
+    public void setSysIdSteerVoltage(double volts) {
+        for (int i = 0; i < modules.size(); i++) {
+            modules.get(i).setSteerVoltage(volts);
+        }
+    }
+
+    public void setSysIdCharacterizing(boolean characterizing) {
+        for (int i = 0; i < modules.size(); i++) {
+            modules.get(i).setCharacterizing(characterizing);
+        }
+    }
+
+    // module averages, meters and m/s for drive, rad and rad/s for steer, volts for both
+    public double getSysIdDriveAppliedVolts() {
+        double sum = 0.0;
+        for (int i = 0; i < modules.size(); i++) {
+            sum += modules.get(i).getDriveAppliedVoltage();
+        }
+        return sum / modules.size();
+    }
+
+    public double getSysIdSteerAppliedVolts() {
+        double sum = 0.0;
+        for (int i = 0; i < modules.size(); i++) {
+            sum += modules.get(i).getSteerAppliedVoltage();
+        }
+        return sum / modules.size();
+    }
 
+    public double getSysIdDrivePosition() {
+        double sum = 0.0;
+        for (int i = 0; i < modules.size(); i++) {
+            sum += modules.get(i).getDrivePositionMeters();
+        }
+        return sum / modules.size();
+    }
+
+    public double getSysIdDriveVelocity() {
+        double sum = 0.0;
+        for (int i = 0; i < modules.size(); i++) {
+            sum += modules.get(i).getDriveVelocityMetersPerSec();
+        }
+        return sum / modules.size();
+    }
+
+    public double getSysIdSteerPosition() {
+        double sum = 0.0;
+        for (int i = 0; i < modules.size(); i++) {
+            sum += modules.get(i).getSteerPosition();
+        }
+        return sum / modules.size();
+    }
+
+    public double getSysIdSteerVelocity() {
+        double sum = 0.0;
+        for (int i = 0; i < modules.size(); i++) {
+            sum += modules.get(i).getSteerVelocity();
+        }
+        return sum / modules.size();
+    }
+
+    public SwerveSetpointGenerator getSetpointGenerator() {
+        return setpointGenerator;
+    }
+
+    // measured once per loop at the top of periodic, updated in place so copy it to keep a snapshot
+    public ChassisSpeeds getVelocityVector() {
+        return measuredSpeeds;
+    }
+
+    // updates and returns the same object every call, like getVelocityVector
+    public ChassisSpeeds getDriveSpeeds(CommandXboxController controller) {
         double trigger = 1 - controller.getRightTriggerAxis();
-        for (int i = 0; i  < cv.length; i++) {
-            cv[i] = cv[i] * trigger;
+        double vx = -controller.getRightY() * DrivetrainConstants.MAX_TRANSLATION_SPEED_M_S_TELEOP * trigger;
+        double vy = -controller.getRightX() * DrivetrainConstants.MAX_TRANSLATION_SPEED_M_S_TELEOP * trigger;
+        double omega = Math.copySign(Math.pow(Math.abs(controller.getLeftX()), 2), -controller.getLeftX()) * DrivetrainConstants.MAX_ROTATION_SPEED_RAD_S_TELEOP * trigger;
+        // double omega = -controller.getLeftX() * DrivetrainConstants.MAX_ROTATION_SPEED_RAD_S_TELEOP * trigger;
+
+        if (driveConfig.getFieldOp()) {
+            // same as ChassisSpeeds.fromFieldRelativeSpeeds, rotated by -yaw
+            double yawRad = getYawRad();
+            double cos = Math.cos(yawRad);
+            double sin = Math.sin(yawRad);
+            driveSpeeds.vxMetersPerSecond = vx * cos + vy * sin;
+            driveSpeeds.vyMetersPerSecond = -vx * sin + vy * cos;
+        } else {
+            driveSpeeds.vxMetersPerSecond = vx;
+            driveSpeeds.vyMetersPerSecond = vy;
         }
-        
-        return driveConfig.getFieldOp() ? ChassisSpeeds.fromFieldRelativeSpeeds(cv[0], cv[1], cv[2], this.getRotation()) : new ChassisSpeeds(cv[0], cv[1], cv[2]);
+        driveSpeeds.omegaRadiansPerSecond = omega;
+        return driveSpeeds;
     }
 
     public void log() {
-        SteelTalonsLogger.post("Drivetrain Setpoint X", setPoint.vxMetersPerSecond);
-        SteelTalonsLogger.post("Drivetrain Setpoint Y", setPoint.vyMetersPerSecond);
-        SteelTalonsLogger.post("Drivetrain Setpoint Theta", setPoint.omegaRadiansPerSecond);
-        SteelTalonsLogger.post("x speed", getVelocityVector().vxMetersPerSecond);
-        SteelTalonsLogger.post("y speed", getVelocityVector().vyMetersPerSecond);
+        setpointXLog.set(setPoint.vxMetersPerSecond);
+        setpointYLog.set(setPoint.vyMetersPerSecond);
+        setpointThetaLog.set(setPoint.omegaRadiansPerSecond);
+        generatedXLog.set(setpointGenerator.getVx());
+        generatedYLog.set(setpointGenerator.getVy());
+        generatedThetaLog.set(setpointGenerator.getOmega());
+        xSpeedLog.set(measuredSpeeds.vxMetersPerSecond);
+        ySpeedLog.set(measuredSpeeds.vyMetersPerSecond);
         // modules.get(0).log("front left");
         // modules.get(1).log("front right");
         // modules.get(2).log("back left");
@@ -1,69 +1,283 @@
 package frc.robot.subsystems.Swerve;
 
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusSignal;
 import com.ctre.phoenix6.configs.TalonFXConfiguration;
+import com.ctre.phoenix6.controls.NeutralOut;
+import com.ctre.phoenix6.controls.VelocityTorqueCurrentFOC;
 import com.ctre.phoenix6.controls.VelocityVoltage;
+import com.ctre.phoenix6.controls.VoltageOut;
 import com.ctre.phoenix6.hardware.CANcoder;
 import com.ctre.phoenix6.hardware.TalonFX;
 
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.util.CANFramePolicy;
 import frc.robot.util.MiscUtil;
 import frc.robot.util.STSmaxConfig;
 import frc.robot.util.SteelTalonsLogger;
+import frc.robot.util.Localization.OdometryThread;
+import frc.robot.util.Replay.InputsTable;
+import frc.robot.util.Replay.LoggableInputs;
+import frc.robot.util.Replay.Replay;
 import frc.robot.util.SmaxProfiles.SteelTalonsSparkMaxSimpleServo;
 
 public class SwerveModule {
+    private static final double MAX_STEER_FF_GAP_S = 0.1; // older targets don't say anything about the current rate
+    private static final double CHARACTERIZATION_SIGNAL_HZ = 100.0;
     private TalonFX driveMotor;
     // private SteelTalonsSparkMaxFlywheel driveMotor;
     private SteelTalonsSparkMaxSimpleServo steerMotor;
     private CANcoder canCoder;
     private double deadZone = 0.0;
+    private DriveConfig.DriveMode driveMode = DriveConfig.DriveMode.kVelocityVoltage;
+    private double steerKV;
+    private double lastTargetRad = 0.0;
+    private double lastTargetTimestamp = Double.NaN; // NaN when the last call didn't steer
+
+    // refreshed together by SwerveDrivetrain once per loop, reading them here never blocks
+    private final StatusSignal<Double> drivePosition;
+    private final StatusSignal<Double> driveVelocity;
+    private final StatusSignal<Double> canCoderPosition;
+    private final StatusSignal<Double> driveMotorVoltage; // off outside of SysId
+    private final BaseStatusSignal[] signals;
+    private final Inputs inputs = new Inputs();
+
+    // reused every loop instead of allocating new requests/states
+    private final VelocityVoltage velocityRequest = new VelocityVoltage(0).withEnableFOC(true).withSlot(0);
+    private final VelocityTorqueCurrentFOC torqueRequest = new VelocityTorqueCurrentFOC(0).withSlot(1);
+    private final NeutralOut neutralRequest = new NeutralOut();
+    private final VoltageOut voltageRequest = new VoltageOut(0).withEnableFOC(true);
+    private final SwerveModulePosition position = new SwerveModulePosition();
+    private final SwerveModuleState state = new SwerveModuleState();
+    // Rotation2d is immutable, the control path stays on radians and only localization builds these
+    private double cachedAngleRad = Double.NaN;
+    private Rotation2d cachedAngle = new Rotation2d();
+
+    // created on the first log() call, the name comes from the caller
+    private SteelTalonsLogger.DoubleHandle velocityLog;
+    private SteelTalonsLogger.DoubleHandle positionLog;
+    private SteelTalonsLogger.DoubleHandle angleLog;
+    private SteelTalonsLogger.DoubleHandle absoluteAngleLog;
     
     public SwerveModule(int talonID, TalonFXConfiguration driveConfig, STSmaxConfig steerConfig, int canCoderID, double offset) {
 
         driveMotor = new TalonFX(talonID);
-        driveMotor.getConfigurator().apply(driveConfig);
-        DrivetrainConstants.configureDriveTalon(driveMotor);
+        driveMotor.getConfigurator().apply(DrivetrainConstants.configureDriveTalon(driveConfig));
 
         steerMotor = new SteelTalonsSparkMaxSimpleServo(DrivetrainConstants.configureSteerNeo(steerConfig));
+        steerKV = steerConfig.kV;
 
         canCoder = new CANcoder(canCoderID);
         DrivetrainConstants.configureCanCoder(canCoder, offset);
 
+        drivePosition = driveMotor.getPosition();
+        driveVelocity = driveMotor.getVelocity();
+        canCoderPosition = canCoder.getAbsolutePosition();
+        driveMotorVoltage = driveMotor.getMotorVoltage();
+        signals = new BaseStatusSignal[] {drivePosition, driveVelocity, canCoderPosition};
+
+        // drive signals feed the odometry thread, the CANcoder is only read by the main loop
+        BaseStatusSignal.setUpdateFrequencyForAll(OdometryThread.FREQUENCY_HZ, drivePosition, driveVelocity);
+        canCoderPosition.setUpdateFrequency(1.0 / TimedRobot.kDefaultPeriod);
+
         driveMotor.setPosition(0);
-        steerMotor.setPosition(canCoder.getAbsolutePosition().getValueAsDouble() * 2 * Math.PI);
+        steerMotor.setPosition(canCoderPosition.waitForUpdate(0.1).getValueAsDouble() * 2 * Math.PI);
+
+        CANFramePolicy.optimize(driveMotor, true, drivePosition, driveVelocity);
+        CANFramePolicy.optimize(canCoder, false, canCoderPosition);
+    }
+
+    public static class Inputs implements LoggableInputs {
+        public double drivePositionRot; // latency compensated
+        public double driveVelocityRotPerSec;
+        public double steerPositionRad;
+        public double canCoderRot;
+
+        @Override
+        public void toLog(InputsTable table) {
+            table.put("DrivePositionRot", drivePositionRot);
+            table.put("DriveVelocityRotPerSec", driveVelocityRotPerSec);
+            table.put("SteerPositionRad", steerPositionRad);
+            table.put("CanCoderRot", canCoderRot);
+        }
+
+        @Override
+        public void fromLog(InputsTable table) {
+            drivePositionRot = table.get("DrivePositionRot", drivePositionRot);
+            driveVelocityRotPerSec = table.get("DriveVelocityRotPerSec", driveVelocityRotPerSec);
+            steerPositionRad = table.get("SteerPositionRad", steerPositionRad);
+            canCoderRot = table.get("CanCoderRot", canCoderRot);
+        }
+    }
+
+    public BaseStatusSignal[] getSignals() {
+        return signals;
     }
 
+    // called by SwerveDrivetrain right after the signals are refreshed, everything below reads inputs
+    public void updateInputs(String key) {
+        if (!Replay.isReplay()) {
+            inputs.drivePositionRot = latencyCompensated(drivePosition, driveVelocity);
+            inputs.driveVelocityRotPerSec = driveVelocity.getValueAsDouble();
+            inputs.steerPositionRad = steerMotor.getPosition();
+            inputs.canCoderRot = canCoderPosition.getValueAsDouble();
+        }
+        Replay.processInputs(key, inputs);
+    }
+
+    // BaseStatusSignal.getLatencyCompensatedValue boxes through getValue, this stays on doubles
+    static double latencyCompensated(StatusSignal<Double> signal, StatusSignal<Double> slope) {
+        return signal.getValueAsDouble() + slope.getValueAsDouble() * signal.getTimestamp().getLatency();
+    }
+
+    // primitives for the control path, as of the last updateInputs
+    public double getDrivePositionMeters() {
+        return MiscUtil.DTrotToMeters(inputs.drivePositionRot);
+    }
+
+    public double getDriveVelocityMetersPerSec() {
+        return MiscUtil.DTrotToMeters(inputs.driveVelocityRotPerSec);
+    }
+
+    public double getSteerAngleRad() {
+        return inputs.steerPositionRad;
+    }
+
+    // Both getters update and return the same object every call, callers that need to keep a
+    // snapshot must copy it. These build a Rotation2d whenever the steer moved, keep them off the
+    // control path
     public SwerveModulePosition getModulePosition() {
-        return new SwerveModulePosition(MiscUtil.DTrotToMeters(driveMotor.getPosition().getValueAsDouble()), new Rotation2d(steerMotor.getPosition()));
+        position.distanceMeters = getDrivePositionMeters();
+        position.angle = steerAngle();
+        return position;
     }
 
     public SwerveModuleState getModuleState() {
-        return new SwerveModuleState(MiscUtil.DTrotToMeters(driveMotor.getVelocity().getValueAsDouble()), new Rotation2d(steerMotor.getPosition()));
+        state.speedMetersPerSecond = getDriveVelocityMetersPerSec();
+        state.angle = steerAngle();
+        return state;
+    }
+
+    // only build a new one when the steer angle actually moved
+    private Rotation2d steerAngle() {
+        double angleRad = inputs.steerPositionRad;
+        if (angleRad != cachedAngleRad) {
+            cachedAngleRad = angleRad;
+            cachedAngle = new Rotation2d(angleRad);
+        }
+        return cachedAngle;
     }
 
-    public void setModuleState(SwerveModuleState state) {
-        SwerveModuleState newState = SwerveModuleState.optimize(state, canCoderRot());
+    public void setModuleState(SwerveModuleState desiredState) {
+        setModuleState(desiredState.speedMetersPerSecond, desiredState.angle.getRadians(), 0.0);
+    }
+
+    // accel is along the module heading in m/s^2, it only does something in kTorqueCurrentFOC (slot 0 has no kA)
+    public void setModuleState(double speedMetersPerSecond, double angleRad, double accelMetersPerSecSq) {
+        // same as SwerveModuleState.optimize but on primitives
+        double targetRad = angleRad;
+        double speed = speedMetersPerSecond;
+        double accel = accelMetersPerSecSq;
+        if (Math.abs(MathUtil.angleModulus(targetRad - canCoderRad())) > Math.PI / 2) {
+            targetRad = MathUtil.angleModulus(targetRad + Math.PI);
+            speed = -speed;
+            accel = -accel;
+        }
 
-        double velocitySetpoint = MiscUtil.DTmetersToRot(newState.speedMetersPerSecond);
-        Rotation2d rotSetpoint = newState.angle;
+        double velocitySetpoint = MiscUtil.DTmetersToRot(speed);
 
         if (Math.abs(velocitySetpoint) > deadZone) {
-            steerMotor.setSetpoint(rotSetpoint.getRadians(), 0);
-            driveMotor.setControl(new VelocityVoltage(velocitySetpoint).withEnableFOC(true));
+            // only drive the part of the speed that points where the wheel is actually pointing
+            double cosineScale = Math.cos(MathUtil.angleModulus(targetRad - canCoderRad()));
+            double velocity = velocitySetpoint * cosineScale;
+            double acceleration = MiscUtil.DTmetersToRot(accel) * cosineScale;
+            steerMotor.setSetpoint(targetRad, steerKV * steerRate(targetRad));
+            if (driveMode == DriveConfig.DriveMode.kTorqueCurrentFOC) {
+                driveMotor.setControl(torqueRequest.withVelocity(velocity).withAcceleration(acceleration));
+            } else {
+                driveMotor.setControl(velocityRequest.withVelocity(velocity).withAcceleration(acceleration));
+            }
         } else {
             steerMotor.forceStop();
-            driveMotor.stopMotor();
+            driveMotor.setControl(neutralRequest);
+            lastTargetTimestamp = Double.NaN;
+        }
+    }
+
+    // how fast the commanded angle is moving, for the steer's velocity feedforward
+    private double steerRate(double targetRad) {
+        double now = Timer.getFPGATimestamp();
+        double dt = now - lastTargetTimestamp;
+        double change = MathUtil.angleModulus(targetRad - lastTargetRad);
+        lastTargetRad = targetRad;
+        lastTargetTimestamp = now;
+        if (!(dt > 0.0 && dt < MAX_STEER_FF_GAP_S)) {
+            return 0.0;
+        }
+        // optimize flipping the module moves the target by half a turn, the wheel doesn't follow that
+        if (Math.abs(change) > Math.PI / 2) {
+            change -= Math.copySign(Math.PI, change);
         }
+        return MathUtil.clamp(change / dt, -DrivetrainConstants.MAX_STEER_RATE_RAD_S, DrivetrainConstants.MAX_STEER_RATE_RAD_S);
+    }
+
+    // characterization only, the steer holds straight ahead while the drive motor gets a raw voltage
+    public void setDriveVoltage(double volts) {
+        steerMotor.setSetpoint(0.0, 0);
+        driveMotor.setControl(voltageRequest.withOutput(volts));
+    }
+
+    public void setSteerVoltage(double volts) {
+        driveMotor.setControl(neutralRequest);
+        steerMotor.setVoltage(volts);
+    }
+
+    // SysId reads applied voltage off both motors and needs the steer's velocity frame faster
+    public void setCharacterizing(boolean characterizing) {
+        driveMotorVoltage.setUpdateFrequency(characterizing ? CHARACTERIZATION_SIGNAL_HZ : 0.0);
+        steerMotor.setCharacterizing(characterizing);
+    }
+
+    public double getDriveAppliedVoltage() {
+        return driveMotorVoltage.refresh().getValueAsDouble();
+    }
+
+    public double getSteerAppliedVoltage() {
+        return steerMotor.getAppliedVoltage();
+    }
+
+    public double getSteerVelocity() {
+        return steerMotor.getVelocity();
+    }
+
+    public TalonFX getDriveMotor() {
+        return driveMotor;
+    }
+
+    // straight from the SparkMax, only for the odometry thread which samples between main loops
+    public double getSteerPosition() {
+        return steerMotor.getPosition();
     }
 
     public void setDeadzone(double deadZone) {
         this.deadZone = deadZone;
     }
 
+    public void setDriveMode(DriveConfig.DriveMode driveMode) {
+        this.driveMode = driveMode;
+    }
+
     public Rotation2d canCoderRot() {
-        return Rotation2d.fromRotations(canCoder.getAbsolutePosition().getValueAsDouble());
+        return Rotation2d.fromRotations(inputs.canCoderRot);
+    }
+
+    public double canCoderRad() {
+        return inputs.canCoderRot * 2 * Math.PI;
     }
 
     public void resetController() {
@@ -71,10 +285,17 @@ public class SwerveModule {
     } 
 
     public void log(String name) {
-        SteelTalonsLogger.post(name + " velocity", getModuleState().speedMetersPerSecond);
-        SteelTalonsLogger.post(name + " position", getModulePosition().distanceMeters);
-        SteelTalonsLogger.post(name + " angle", getModuleState().angle.getRadians());
-        SteelTalonsLogger.post(name + " absolute angle", canCoder.getAbsolutePosition().getValueAsDouble());
+        if (velocityLog == null) {
+            velocityLog = SteelTalonsLogger.doubleHandle(name + " velocity");
+            positionLog = SteelTalonsLogger.doubleHandle(name + " position");
+            angleLog = SteelTalonsLogger.doubleHandle(name + " angle");
+            absoluteAngleLog = SteelTalonsLogger.doubleHandle(name + " absolute angle");
+        }
+        SwerveModuleState currentState = getModuleState();
+        velocityLog.set(currentState.speedMetersPerSecond);
+        positionLog.set(getModulePosition().distanceMeters);
+        angleLog.set(currentState.angle.getRadians());
+        absoluteAngleLog.set(inputs.canCoderRot);
         // steerMotor.log();
     }
 }
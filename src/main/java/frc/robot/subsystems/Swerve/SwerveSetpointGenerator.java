@@ -0,0 +1,213 @@
+package frc.robot.subsystems.Swerve;
+
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+
+/**
+ * Walks the chassis setpoint from the last one towards the requested one only as far as the
+ * modules can follow in one loop. Module velocities are linear in the chassis speeds, so every
+ * intermediate setpoint is prev + s * (desired - prev) and each limit just caps s:
+ *  - wheel acceleration, the change of any module's velocity vector (traction)
+ *  - chassis jerk, the change of translational acceleration since the last step
+ *  - steer rate, how far a moving module's heading can turn this loop
+ * Modules that are stopped can point anywhere, so they only see the acceleration limit. The jerk
+ * limit only holds back speeding up harder, it never keeps the robot accelerating on its own.
+ *
+ * Everything is primitives, generate allocates nothing.
+ */
+public class SwerveSetpointGenerator {
+    private static final double STOPPED_M_S = 1e-3;
+    private static final int STEER_SEARCH_ITERATIONS = 10;
+
+    private final SquareSwerveKinematics kinematics;
+    private final double maxModuleSpeed;
+    private final double maxSteerRate;
+    private final double maxModuleAccel;
+    private final double maxJerk;
+
+    // last setpoint, robot relative
+    private double vx, vy, omega;
+    private double ax, ay;
+    private final double[] moduleSpeed;
+    private final double[] moduleHeadingRad;
+    private final double[] moduleAccel; // along the module heading
+
+    // scratch
+    private final double[] desiredModuleVx;
+    private final double[] desiredModuleVy;
+    private final double[] prevModuleVx;
+    private final double[] prevModuleVy;
+    private final double[] moduleVx;
+    private final double[] moduleVy;
+
+    public SwerveSetpointGenerator(SquareSwerveKinematics kinematics, double maxModuleSpeed, double maxSteerRate, double maxModuleAccel, double maxJerk) {
+        this.kinematics = kinematics;
+        this.maxModuleSpeed = maxModuleSpeed;
+        this.maxSteerRate = maxSteerRate;
+        this.maxModuleAccel = maxModuleAccel;
+        this.maxJerk = maxJerk;
+        int n = SquareSwerveKinematics.MODULES;
+        moduleSpeed = new double[n];
+        moduleHeadingRad = new double[n];
+        moduleAccel = new double[n];
+        desiredModuleVx = new double[n];
+        desiredModuleVy = new double[n];
+        prevModuleVx = new double[n];
+        prevModuleVy = new double[n];
+        moduleVx = new double[n];
+        moduleVy = new double[n];
+    }
+
+    // start from what the robot is actually doing, headings are the measured module angles
+    public void reset(ChassisSpeeds measured, double[] measuredHeadingRad) {
+        vx = measured.vxMetersPerSecond;
+        vy = measured.vyMetersPerSecond;
+        omega = measured.omegaRadiansPerSecond;
+        ax = 0.0;
+        ay = 0.0;
+        for (int i = 0; i < SquareSwerveKinematics.MODULES; i++) {
+            moduleHeadingRad[i] = measuredHeadingRad[i];
+        }
+        updateModules(0.0);
+    }
+
+    public void generate(double desiredVx, double desiredVy, double desiredOmega, double dtS) {
+        int n = SquareSwerveKinematics.MODULES;
+
+        // desaturate the chassis request itself so the interpolation stays on reachable speeds
+        kinematics.toModuleVelocities(desiredVx, desiredVy, desiredOmega, desiredModuleVx, desiredModuleVy);
+        double fastest = 0.0;
+        for (int i = 0; i < n; i++) {
+            fastest = Math.max(fastest, Math.hypot(desiredModuleVx[i], desiredModuleVy[i]));
+        }
+        if (fastest > maxModuleSpeed) {
+            double scale = maxModuleSpeed / fastest;
+            desiredVx *= scale;
+            desiredVy *= scale;
+            desiredOmega *= scale;
+            for (int i = 0; i < n; i++) {
+                desiredModuleVx[i] *= scale;
+                desiredModuleVy[i] *= scale;
+            }
+        }
+        kinematics.toModuleVelocities(vx, vy, omega, prevModuleVx, prevModuleVy);
+
+        double s = 1.0;
+
+        double maxVelocityStep = maxModuleAccel * dtS;
+        for (int i = 0; i < n; i++) {
+            double step = Math.hypot(desiredModuleVx[i] - prevModuleVx[i], desiredModuleVy[i] - prevModuleVy[i]);
+            if (step > maxVelocityStep) {
+                s = Math.min(s, maxVelocityStep / step);
+            }
+        }
+
+        double dvx = desiredVx - vx;
+        double dvy = desiredVy - vy;
+        s = Math.min(s, jerkLimit(dvx / dtS, dvy / dtS, maxJerk * dtS));
+
+        double maxHeadingStep = maxSteerRate * dtS;
+        for (int i = 0; i < n; i++) {
+            if (Math.hypot(prevModuleVx[i], prevModuleVy[i]) < STOPPED_M_S) {
+                continue;
+            }
+            if (steerNeeded(i, s) <= maxHeadingStep) {
+                continue;
+            }
+            // the heading sweeps monotonically along the line, so the boundary can be bisected
+            double lo = 0.0;
+            double hi = s;
+            for (int k = 0; k < STEER_SEARCH_ITERATIONS; k++) {
+                double mid = (lo + hi) / 2.0;
+                if (Math.abs(headingChange(i, mid)) <= maxHeadingStep) {
+                    lo = mid;
+                } else {
+                    hi = mid;
+                }
+            }
+            s = lo;
+        }
+
+        ax = s * dvx / dtS;
+        ay = s * dvy / dtS;
+        vx += s * dvx;
+        vy += s * dvy;
+        omega += s * (desiredOmega - omega);
+        updateModules(dtS);
+    }
+
+    // largest s with |s * accelDirection - last accel| <= maxStep, only ever used as an upper bound
+    private double jerkLimit(double accelX, double accelY, double maxStep) {
+        double uu = accelX * accelX + accelY * accelY;
+        if (uu < 1e-9) {
+            return 1.0;
+        }
+        double ua = accelX * ax + accelY * ay;
+        double aa = ax * ax + ay * ay;
+        double discriminant = ua * ua - uu * (aa - maxStep * maxStep);
+        // no s is within the limit, take the closest one
+        double upper = discriminant >= 0.0 ? (ua + Math.sqrt(discriminant)) / uu : ua / uu;
+        return Math.max(upper, 0.0);
+    }
+
+    // signed angle from module i's last velocity to its velocity at s
+    private double headingChange(int i, double s) {
+        double px = prevModuleVx[i];
+        double py = prevModuleVy[i];
+        double x = px + s * (desiredModuleVx[i] - px);
+        double y = py + s * (desiredModuleVy[i] - py);
+        return Math.atan2(px * y - py * x, px * x + py * y);
+    }
+
+    // the module can drive backwards, so a turn past 90 degrees is the rest of the half turn
+    private double steerNeeded(int i, double s) {
+        double change = Math.abs(headingChange(i, s));
+        return Math.min(change, Math.PI - change);
+    }
+
+    // dtS of 0 means there's no previous step to take an acceleration from
+    private void updateModules(double dtS) {
+        kinematics.toModuleVelocities(vx, vy, omega, moduleVx, moduleVy);
+        for (int i = 0; i < SquareSwerveKinematics.MODULES; i++) {
+            double mx = moduleVx[i];
+            double my = moduleVy[i];
+            double speed = Math.hypot(mx, my);
+            if (speed < STOPPED_M_S) {
+                // hold the heading so modules don't snap to zero every time the robot stops
+                moduleSpeed[i] = 0.0;
+            } else {
+                moduleSpeed[i] = speed;
+                moduleHeadingRad[i] = Math.atan2(my, mx);
+            }
+            if (dtS > 0.0) {
+                double heading = moduleHeadingRad[i];
+                moduleAccel[i] = ((mx - prevModuleVx[i]) * Math.cos(heading) + (my - prevModuleVy[i]) * Math.sin(heading)) / dtS;
+            } else {
+                moduleAccel[i] = 0.0;
+            }
+        }
+    }
+
+    public double getModuleSpeed(int module) {
+        return moduleSpeed[module];
+    }
+
+    public double getModuleHeadingRad(int module) {
+        return moduleHeadingRad[module];
+    }
+
+    public double getModuleAccel(int module) {
+        return moduleAccel[module];
+    }
+
+    public double getVx() {
+        return vx;
+    }
+
+    public double getVy() {
+        return vy;
+    }
+
+    public double getOmega() {
+        return omega;
+    }
+}
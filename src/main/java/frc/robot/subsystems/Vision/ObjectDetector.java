@@ -1,15 +1,33 @@
 package frc.robot.subsystems.Vision;
 
 import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoubleSubscriber;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableInstance;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.util.LoopProfiler;
+import frc.robot.util.Replay.InputsTable;
+import frc.robot.util.Replay.LoggableInputs;
+import frc.robot.util.Replay.Replay;
 
 public class ObjectDetector extends SubsystemBase {
 
     private NetworkTable table_m;
     private boolean tv;
+    private int profilerSlot;
+    private final String inputsKey;
+    private final Inputs inputs = new Inputs();
+
+    // subscribed once, read once per loop in periodic
+    private final DoubleSubscriber tvSub;
+    private final DoubleSubscriber tidSub;
+    private final DoubleSubscriber txSub;
+    private final DoubleSubscriber tySub;
+    private final DoubleSubscriber taSub;
+    private final DoubleSubscriber tlSub;
+    private final DoubleSubscriber clSub;
+    private final BooleanPublisher visiblePub;
 
     private static final double inRangeConst = 7.0;
     private static final double xProportional = -0.05; // 0.1
@@ -20,14 +38,73 @@ public class ObjectDetector extends SubsystemBase {
 
     private static final double TAG_HEIGHT = 1.45098;
 
+    public static class Inputs implements LoggableInputs {
+        public double tv;
+        public double tid;
+        public double tx;
+        public double ty;
+        public double ta;
+        public double tl; // pipeline latency, ms
+        public double cl; // capture latency, ms
+        public long lastChangeUs; // when the latest result reached NT
+
+        @Override
+        public void toLog(InputsTable table) {
+            table.put("tv", tv);
+            table.put("tid", tid);
+            table.put("tx", tx);
+            table.put("ty", ty);
+            table.put("ta", ta);
+            table.put("tl", tl);
+            table.put("cl", cl);
+            table.put("LastChangeUs", lastChangeUs);
+        }
+
+        @Override
+        public void fromLog(InputsTable table) {
+            tv = table.get("tv", 0.0);
+            tid = table.get("tid", 0.0);
+            tx = table.get("tx", 0.0);
+            ty = table.get("ty", 0.0);
+            ta = table.get("ta", 0.0);
+            tl = table.get("tl", 0.0);
+            cl = table.get("cl", 0.0);
+            lastChangeUs = table.get("LastChangeUs", 0L);
+        }
+    }
+
     public ObjectDetector(String table) {
         this.table_m = NetworkTableInstance.getDefault().getTable(table);
+        profilerSlot = LoopProfiler.register(getName() + " " + table);
+        inputsKey = "Limelight/" + table;
+
+        tvSub = table_m.getDoubleTopic("tv").subscribe(0.0);
+        tidSub = table_m.getDoubleTopic("tid").subscribe(0.0);
+        txSub = table_m.getDoubleTopic("tx").subscribe(0.0);
+        tySub = table_m.getDoubleTopic("ty").subscribe(0.0);
+        taSub = table_m.getDoubleTopic("ta").subscribe(0.0);
+        tlSub = table_m.getDoubleTopic("tl").subscribe(0.0);
+        clSub = table_m.getDoubleTopic("cl").subscribe(0.0);
+        visiblePub = NetworkTableInstance.getDefault().getTable("SmartDashboard").getBooleanTopic("entry limelight" + table_m.getPath()).publish();
     }
 
     @Override
     public void periodic() {
-        tv = table_m.getEntry("tv").getDouble(0.0) == 1.0;
-        SmartDashboard.putBoolean("entry limelight" + table_m.getPath(), tv);
+        LoopProfiler.begin(profilerSlot);
+        if (!Replay.isReplay()) {
+            inputs.tv = tvSub.get();
+            inputs.tid = tidSub.get();
+            inputs.tx = txSub.get();
+            inputs.ty = tySub.get();
+            inputs.ta = taSub.get();
+            inputs.tl = tlSub.get();
+            inputs.cl = clSub.get();
+            inputs.lastChangeUs = tlSub.getLastChange(); // tl is written with every result
+        }
+        Replay.processInputs(inputsKey, inputs);
+        tv = inputs.tv == 1.0;
+        visiblePub.set(tv);
+        LoopProfiler.end(profilerSlot);
     }
 
     public boolean targetVisible() {
@@ -35,29 +112,37 @@ public class ObjectDetector extends SubsystemBase {
     }
 
     public boolean targetVisible(double id) {
-        double ret = table_m.getEntry("tid").getDouble(0.0);
-        return id == ret;
+        return id == inputs.tid;
     }
 
-    public double[] targetInfo() { // X - Y - A - L
-        return new double[] {
-                table_m.getEntry("tx").getDouble(0),
-                table_m.getEntry("ty").getDouble(0),
-                table_m.getEntry("ta").getDouble(0),
-                table_m.getEntry("tl").getDouble(0),
-        };
+    public double getTx() {
+        return inputs.tx;
     }
 
-    public boolean noteInRange() {
-        return tv && (targetInfo()[1] < inRangeConst);
+    public double getTy() {
+        return inputs.ty;
     }
 
-    public double noteDriveAdjustment() {
+    public double getTa() {
+        return inputs.ta;
+    }
+
+    public double getTl() {
+        return inputs.tl;
+    }
+
+    // FPGA time the current result's image was captured
+    public double getCaptureTimestamp() {
+        return inputs.lastChangeUs / 1e6 - (inputs.tl + inputs.cl) / 1e3;
+    }
 
-        double x = targetInfo()[0];
+    public boolean noteInRange() {
+        return tv && (inputs.ty < inRangeConst);
+    }
 
+    public double noteDriveAdjustment() {
         if (noteInRange()) {
-            return x * xProportional; // may need to scale with y too FIXME
+            return inputs.tx * xProportional; // may need to scale with y too FIXME
         } else {
             return 0.0;
         }
@@ -65,7 +150,7 @@ public class ObjectDetector extends SubsystemBase {
 
     public double speakerDriveAdjustment(double offsetDeg) {
         if (targetVisible()) {
-            return (targetInfo()[0] - offsetDeg) * xProportional;
+            return (inputs.tx - offsetDeg) * xProportional;
         } else {
             return 0.0;
         }
@@ -74,7 +159,7 @@ public class ObjectDetector extends SubsystemBase {
     public double speakerDist() {
         if (targetVisible()) {
             double dH = TAG_HEIGHT - TAG_CAM_HEIGHT_M;
-            return (dH / Math.tan(Math.toRadians(targetInfo()[1]) + TAG_CAM_ANGLE.getRadians())) + TAG_CAM_DIST_TO_CENTER_M;
+            return (dH / Math.tan(Math.toRadians(inputs.ty) + TAG_CAM_ANGLE.getRadians())) + TAG_CAM_DIST_TO_CENTER_M;
         } else {
             return Double.NaN;
         }
@@ -1,15 +1,24 @@
 package frc.robot.subsystems.managing;
 
+import java.util.Optional;
+
+import com.pathplanner.lib.controllers.PPHolonomicDriveController;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
 import frc.robot.RobotContainer;
 import frc.robot.subsystems.Shooter.Shooter;
 import frc.robot.subsystems.Shooter.ShooterConstants;
-import frc.robot.subsystems.Shooter.ShootingConfiguration;
+import frc.robot.subsystems.Shooter.ShotSolution;
+import frc.robot.subsystems.Shooter.ShotSolver;
+import frc.robot.util.RobotState;
 
 public class AutonShoot extends Command {
     private Shooter shooter;
     private Timer timer;
+    private final ShotSolution solution = new ShotSolution();
 
     public AutonShoot() {
         shooter = Shooter.getInstance();
@@ -22,15 +31,18 @@ public class AutonShoot extends Command {
         timer.reset();
         timer.start();
 
+        // a path running alongside this turns the robot to the solver's heading
+        solve();
+        PPHolonomicDriveController.setRotationTargetOverride(this::rotationOverride);
     }
 
     @Override
     public void execute() {
-        ShootingConfiguration config = ShooterConstants.SHOOTER_PIVOT_TARGET_MAP.get(RobotContainer.getTagCam().speakerDist());
-
-        shooter.setShootingConfigSetpoints(config); //ONLY FOR TESTING RN
+        solve();
+        shooter.setPivotSetpoint(Rotation2d.fromRadians(solution.pivotRad));
+        shooter.setFlywheelSetpoint(solution.leftRPM, solution.rightRPM);
 
-        if (timer.get() > 0.25 && shooter.flywheelAtGoal() && shooter.pivotAtGoal(1.0)) {
+        if (timer.get() > 0.25 && shooter.flywheelAtGoal() && shooter.pivotAtGoal(1.0) && headingAtGoal()) {
             shooter.setFeederSetpoint(ShooterConstants.FEEDER_FEED_SPEED);
         }
     }
@@ -42,7 +54,23 @@ public class AutonShoot extends Command {
 
     @Override
     public void end(boolean interrupted) {
+        PPHolonomicDriveController.setRotationTargetOverride(Optional::empty);
         shooter.setPivotSetpoint(ShooterConstants.SHOOTER_PIVOT_HANDOFF);
         shooter.setFeederSetpoint(ShooterConstants.FEEDER_HOLD_SPEED);
     }
+
+    // falls back to the pose range when the limelight can't see a tag
+    private void solve() {
+        ShotSolver.solve(RobotContainer.getTagCam().targetVisible() ? RobotContainer.getTagCam().speakerDist() : Double.NaN, solution);
+    }
+
+    // the heading only comes from the path's rotation override, so don't feed until the robot has
+    // actually turned to it (it never will if no path is running)
+    private boolean headingAtGoal() {
+        return Math.abs(MathUtil.angleModulus(solution.headingRad - RobotState.getHeadingRad())) < ShooterConstants.HEADING_TOLERANCE_RAD;
+    }
+
+    private Optional<Rotation2d> rotationOverride() {
+        return Optional.of(Rotation2d.fromRadians(solution.headingRad));
+    }
 }
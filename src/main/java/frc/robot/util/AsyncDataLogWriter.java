@@ -0,0 +1,367 @@
+package frc.robot.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.RobotController;
+import frc.robot.util.Replay.Replay;
+
+/**
+ * On-robot .wpilog writer that never blocks the robot loop. The main thread drops fixed size
+ * records into a single-producer/single-consumer ring, a background thread encodes them and
+ * writes them to disk, forcing the file to storage once a second. If the writer falls behind
+ * records are dropped and counted instead of stalling the loop.
+ *
+ * Appends are only safe from the main robot thread. Entries can be started from any thread.
+ */
+public class AsyncDataLogWriter {
+    private static final int CAPACITY = 1 << 14; // ~330 records per loop at 50Hz before the writer has 1s of slack
+    private static final int MASK = CAPACITY - 1;
+    private static final int WRITE_BUFFER_BYTES = 1 << 16;
+    private static final long FSYNC_PERIOD_NS = 1_000_000_000L;
+    private static final long IDLE_PARK_NS = 5_000_000L;
+
+    private static final byte KIND_DOUBLE = 0;
+    private static final byte KIND_BOOLEAN = 1;
+    private static final byte KIND_INT64 = 2;
+    private static final byte KIND_STRING = 3;
+    private static final byte KIND_DOUBLE_ARRAY = 4;
+    private static final byte KIND_RAW = 5;
+
+    // every record header uses 4 byte id, 4 byte size and 8 byte timestamp fields
+    private static final byte RECORD_HEADER_BITFIELD = 0x7F;
+    private static final int RECORD_HEADER_BYTES = 1 + 4 + 4 + 8;
+
+    private static final int[] ids = new int[CAPACITY];
+    private static final long[] timestamps = new long[CAPACITY];
+    private static final long[] values = new long[CAPACITY];
+    private static final Object[] refs = new Object[CAPACITY];
+    private static final byte[] kinds = new byte[CAPACITY];
+
+    private static volatile long head = 0; // next slot the main thread writes
+    private static volatile long tail = 0; // next slot the writer thread reads
+    private static volatile long dropped = 0;
+    private static volatile long highWater = 0;
+    private static volatile boolean syncRequested = false;
+
+    private static final AtomicInteger nextId = new AtomicInteger(1); // 0 is the control entry
+    private static final ConcurrentLinkedQueue<StartRecord> pendingStarts = new ConcurrentLinkedQueue<StartRecord>();
+    private static final Thread writerThread;
+
+    private static class StartRecord {
+        final int id;
+        final String name;
+        final String type;
+        final String metadata;
+        final long timestamp;
+
+        StartRecord(int id, String name, String type, String metadata, long timestamp) {
+            this.id = id;
+            this.name = name;
+            this.type = type;
+            this.metadata = metadata;
+            this.timestamp = timestamp;
+        }
+    }
+
+    static {
+        writerThread = new Thread(AsyncDataLogWriter::runWriter, "AsyncDataLogWriter");
+        writerThread.setDaemon(true);
+        writerThread.setPriority(Thread.MIN_PRIORITY);
+        writerThread.start();
+    }
+
+    // Entry registration
+
+    public static int startDouble(String name) {
+        return start(name, "double");
+    }
+
+    public static int startBoolean(String name) {
+        return start(name, "boolean");
+    }
+
+    public static int startInt64(String name) {
+        return start(name, "int64");
+    }
+
+    public static int startString(String name) {
+        return start(name, "string");
+    }
+
+    public static int startDoubleArray(String name) {
+        return start(name, "double[]");
+    }
+
+    public static int startRaw(String name) {
+        return start(name, "raw");
+    }
+
+    public static int start(String name, String type) {
+        int id = nextId.getAndIncrement();
+        pendingStarts.add(new StartRecord(id, name, type, "", RobotController.getFPGATime()));
+        return id;
+    }
+
+    // Producer side, main robot thread only
+
+    public static void appendDouble(int id, double value) {
+        append(id, KIND_DOUBLE, Double.doubleToRawLongBits(value), null);
+    }
+
+    public static void appendBoolean(int id, boolean value) {
+        append(id, KIND_BOOLEAN, value ? 1 : 0, null);
+    }
+
+    public static void appendInt64(int id, long value) {
+        append(id, KIND_INT64, value, null);
+    }
+
+    public static void appendString(int id, String value) {
+        append(id, KIND_STRING, 0, value);
+    }
+
+    // Arrays are copied since callers reuse their buffers, keep these for data that really is variable length
+    public static void appendDoubleArray(int id, double[] value, int length) {
+        append(id, KIND_DOUBLE_ARRAY, 0, Arrays.copyOf(value, length));
+    }
+
+    public static void appendRaw(int id, byte[] value, int length) {
+        append(id, KIND_RAW, 0, Arrays.copyOf(value, length));
+    }
+
+    private static void append(int id, byte kind, long value, Object ref) {
+        long h = head;
+        long size = h - tail;
+        if (size >= CAPACITY) {
+            dropped++;
+            return;
+        }
+        int slot = (int) (h & MASK);
+        ids[slot] = id;
+        timestamps[slot] = RobotController.getFPGATime();
+        values[slot] = value;
+        refs[slot] = ref;
+        kinds[slot] = kind;
+        head = h + 1;
+        if (size + 1 > highWater) {
+            highWater = size + 1;
+        }
+    }
+
+    public static long getDropped() {
+        return dropped;
+    }
+
+    public static long getHighWater() {
+        return highWater;
+    }
+
+    // Blocks until everything appended so far is on disk, for desktop tools that exit right after logging
+    public static void flushAndWait(double timeoutSeconds) {
+        long deadline = System.nanoTime() + (long) (timeoutSeconds * 1e9);
+        syncRequested = true;
+        while (syncRequested && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(IDLE_PARK_NS);
+        }
+    }
+
+    // Consumer side
+
+    private static FileChannel channel;
+    private static final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private static int lastStartedId = 0;
+    private static long bytesWritten = 0;
+
+    private static void runWriter() {
+        NetworkTable table = NetworkTableInstance.getDefault().getTable("AsyncDataLog");
+        IntegerPublisher droppedPub = table.getIntegerTopic("Dropped").publish();
+        IntegerPublisher highWaterPub = table.getIntegerTopic("High Water").publish();
+        IntegerPublisher capacityPub = table.getIntegerTopic("Capacity").publish();
+        IntegerPublisher bytesPub = table.getIntegerTopic("Bytes Written").publish();
+        capacityPub.set(CAPACITY);
+
+        channel = openLogFile();
+        writeFileHeader();
+        long lastSync = System.nanoTime();
+
+        while (true) {
+            boolean wroteAny = drainStarts();
+            long t = tail;
+            long h = head;
+            while (t != h) {
+                int slot = (int) (t & MASK);
+                if (ids[slot] > lastStartedId) {
+                    drainStarts(); // the start was queued before this record was appended
+                }
+                writeRecord(ids[slot], timestamps[slot], kinds[slot], values[slot], refs[slot]);
+                refs[slot] = null;
+                t++;
+                tail = t;
+                wroteAny = true;
+            }
+            flush();
+
+            if (syncRequested && tail == head && pendingStarts.isEmpty()) {
+                sync();
+                syncRequested = false;
+            }
+
+            long now = System.nanoTime();
+            if (now - lastSync > FSYNC_PERIOD_NS) {
+                lastSync = now;
+                sync();
+                droppedPub.set(dropped);
+                highWaterPub.set(highWater);
+                bytesPub.set(bytesWritten);
+            }
+            if (!wroteAny) {
+                LockSupport.parkNanos(IDLE_PARK_NS);
+            }
+        }
+    }
+
+    private static boolean drainStarts() {
+        boolean wroteAny = false;
+        StartRecord start;
+        while ((start = pendingStarts.poll()) != null) {
+            byte[] name = start.name.getBytes(StandardCharsets.UTF_8);
+            byte[] type = start.type.getBytes(StandardCharsets.UTF_8);
+            byte[] metadata = start.metadata.getBytes(StandardCharsets.UTF_8);
+            int size = 1 + 4 + 4 + name.length + 4 + type.length + 4 + metadata.length;
+            reserve(RECORD_HEADER_BYTES + size);
+            writeHeader(0, size, start.timestamp);
+            buffer.put((byte) 0); // control record type: start
+            buffer.putInt(start.id);
+            buffer.putInt(name.length).put(name);
+            buffer.putInt(type.length).put(type);
+            buffer.putInt(metadata.length).put(metadata);
+            lastStartedId = Math.max(lastStartedId, start.id);
+            wroteAny = true;
+        }
+        return wroteAny;
+    }
+
+    private static void writeRecord(int id, long timestamp, byte kind, long value, Object ref) {
+        switch (kind) {
+            case KIND_DOUBLE:
+            case KIND_INT64:
+                reserve(RECORD_HEADER_BYTES + 8);
+                writeHeader(id, 8, timestamp);
+                buffer.putLong(value);
+                break;
+            case KIND_BOOLEAN:
+                reserve(RECORD_HEADER_BYTES + 1);
+                writeHeader(id, 1, timestamp);
+                buffer.put((byte) value);
+                break;
+            case KIND_STRING:
+                writeBytes(id, timestamp, ((String) ref).getBytes(StandardCharsets.UTF_8));
+                break;
+            case KIND_RAW:
+                writeBytes(id, timestamp, (byte[]) ref);
+                break;
+            case KIND_DOUBLE_ARRAY:
+                double[] array = (double[]) ref;
+                if (RECORD_HEADER_BYTES + array.length * 8 > WRITE_BUFFER_BYTES) {
+                    return;
+                }
+                reserve(RECORD_HEADER_BYTES + array.length * 8);
+                writeHeader(id, array.length * 8, timestamp);
+                for (int i = 0; i < array.length; i++) {
+                    buffer.putDouble(array[i]);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void writeBytes(int id, long timestamp, byte[] bytes) {
+        if (RECORD_HEADER_BYTES + bytes.length > WRITE_BUFFER_BYTES) {
+            return; // won't ever fit, not worth a special path
+        }
+        reserve(RECORD_HEADER_BYTES + bytes.length);
+        writeHeader(id, bytes.length, timestamp);
+        buffer.put(bytes);
+    }
+
+    private static void writeHeader(int id, int size, long timestamp) {
+        buffer.put(RECORD_HEADER_BITFIELD);
+        buffer.putInt(id);
+        buffer.putInt(size);
+        buffer.putLong(timestamp);
+    }
+
+    private static void reserve(int bytes) {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private static void writeFileHeader() {
+        buffer.put("WPILOG".getBytes(StandardCharsets.US_ASCII));
+        buffer.putShort((short) 0x0100);
+        buffer.putInt(0); // no extra header
+        flush();
+    }
+
+    private static void flush() {
+        buffer.flip();
+        if (channel != null) {
+            try {
+                while (buffer.hasRemaining()) {
+                    bytesWritten += channel.write(buffer);
+                }
+            } catch (IOException e) {
+                System.err.println("AsyncDataLogWriter: write failed, logging stopped (" + e.getMessage() + ")");
+                channel = null;
+            }
+        }
+        buffer.clear();
+    }
+
+    private static void sync() {
+        if (channel != null) {
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                System.err.println("AsyncDataLogWriter: fsync failed (" + e.getMessage() + ")");
+            }
+        }
+    }
+
+    private static FileChannel openLogFile() {
+        File dir;
+        if (RobotBase.isReal()) {
+            File usb = new File("/U/logs");
+            dir = (usb.isDirectory() || usb.mkdirs()) && usb.canWrite() ? usb : new File("/home/lvuser/logs");
+        } else {
+            dir = new File("logs");
+        }
+        dir.mkdirs();
+        String suffix = Replay.isReplay() ? "_replay.wpilog" : ".wpilog";
+        File file = new File(dir, "STS_" + new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date()) + suffix);
+        try {
+            return FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("AsyncDataLogWriter: couldn't open " + file + ", records will be discarded (" + e.getMessage() + ")");
+            return null;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package frc.robot.util;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.hardware.ParentDevice;
+import com.revrobotics.CANSparkLowLevel.PeriodicFrame;
+import com.revrobotics.CANSparkMax;
+
+import edu.wpi.first.wpilibj.TimedRobot;
+import frc.robot.util.Localization.OdometryThread;
+
+/**
+ * One place that decides how often every device on the bus talks. SparkMax wrappers pick a Role
+ * and get its status frame periods, Phoenix devices keep only the signals we explicitly gave a
+ * frequency to. Every frame that gets configured is added to a rough bus load estimate that is
+ * printed once at boot.
+ */
+public class CANFramePolicy {
+    private static final double BUS_BITRATE = 1_000_000.0;
+    private static final double BITS_PER_FRAME = 150.0; // 29 bit id, 8 byte payload, worst case bit stuffing
+    private static final double LOAD_WARNING = 0.70;
+    private static final double CONTROL_FRAME_HZ = 1.0 / TimedRobot.kDefaultPeriod; // setpoints go out every loop
+    private static final double PHOENIX_CONTROL_FRAME_HZ = 100.0; // default control request update rate
+    private static final int DISABLED_MS = 65533;
+    private static final int CHARACTERIZATION_MS = 10;
+
+    // status 0: applied output/faults (followers track the leader's status 0)
+    // status 1: velocity/current/temp
+    // status 2: position
+    public enum Role {
+        kSteerServo(20, 100, (int) (1000.0 / OdometryThread.FREQUENCY_HZ)), // position sampled by the odometry thread
+        kFlywheel(20, 10, DISABLED_MS), // velocity loops need fresh velocity, position is never read
+        kPivot(10, 20, 20), // leaders, followers listen to status 0
+        kFollower(100, 500, DISABLED_MS),
+        kRoller(20, 20, 500);
+
+        public final int status0Ms;
+        public final int status1Ms;
+        public final int status2Ms;
+
+        private Role(int status0Ms, int status1Ms, int status2Ms) {
+            this.status0Ms = status0Ms;
+            this.status1Ms = status1Ms;
+            this.status2Ms = status2Ms;
+        }
+    }
+
+    private static double framesPerSecond = 0.0;
+    private static int sparkCount = 0;
+    private static int phoenixCount = 0;
+
+    public static void apply(CANSparkMax smax, Role role) {
+        smax.setPeriodicFramePeriod(PeriodicFrame.kStatus0, role.status0Ms);
+        smax.setPeriodicFramePeriod(PeriodicFrame.kStatus1, role.status1Ms);
+        smax.setPeriodicFramePeriod(PeriodicFrame.kStatus2, role.status2Ms);
+        MiscUtil.doPeriodicFrameLess(smax); // status 3-6, nothing uses analog/alt/absolute encoder data
+
+        double hz = periodToHz(role.status0Ms) + periodToHz(role.status1Ms) + periodToHz(role.status2Ms) + 4 * periodToHz(DISABLED_MS);
+        if (role != Role.kFollower) {
+            hz += CONTROL_FRAME_HZ;
+        }
+        addDevice(hz, true);
+    }
+
+    // SysId fits kV/kA on velocity and applied voltage (status 1) and position (status 2), so both
+    // run at least every 10ms for the length of a test and go back to the role's periods after.
+    // Not counted in the boot estimate, tests only run in test mode
+    public static void setCharacterizing(CANSparkMax smax, Role role, boolean characterizing) {
+        smax.setPeriodicFramePeriod(PeriodicFrame.kStatus1, characterizing ? Math.min(role.status1Ms, CHARACTERIZATION_MS) : role.status1Ms);
+        smax.setPeriodicFramePeriod(PeriodicFrame.kStatus2, characterizing ? Math.min(role.status2Ms, CHARACTERIZATION_MS) : role.status2Ms);
+    }
+
+    // Callers set the update frequency of every signal they actually read before calling this,
+    // everything else on the device gets turned off
+    public static void optimize(ParentDevice device, boolean commanded, BaseStatusSignal... usedSignals) {
+        device.optimizeBusUtilization();
+        double hz = commanded ? PHOENIX_CONTROL_FRAME_HZ : 0.0;
+        for (BaseStatusSignal signal : usedSignals) {
+            hz += signal.getAppliedUpdateFrequency();
+        }
+        addDevice(hz, false);
+    }
+
+    // devices get configured from the DeviceInitializer pool, so the totals are shared between threads
+    private static synchronized void addDevice(double hz, boolean isSpark) {
+        framesPerSecond += hz;
+        if (isSpark) {
+            sparkCount++;
+        } else {
+            phoenixCount++;
+        }
+    }
+
+    public static synchronized double getEstimatedBusLoad() {
+        return framesPerSecond * BITS_PER_FRAME / BUS_BITRATE;
+    }
+
+    public static synchronized void report() {
+        double load = getEstimatedBusLoad();
+        System.err.println(String.format(
+            "CAN budget: %d SparkMax, %d Phoenix devices, %.0f frames/s, estimated bus load %.1f%%",
+            sparkCount, phoenixCount, framesPerSecond, load * 100.0
+        ));
+        if (load > LOAD_WARNING) {
+            System.err.println("CAN budget: estimated load is over " + (int) (LOAD_WARNING * 100) + "%, frames will start getting dropped");
+        }
+        SteelTalonsLogger.post("CAN estimated load (%)", load * 100.0);
+    }
+
+    private static double periodToHz(int periodMs) {
+        return 1000.0 / periodMs;
+    }
+}
@@ -0,0 +1,152 @@
+package frc.robot.util;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Runs independent device configuration (motor wrappers, swerve modules, Phoenix configs) on a
+ * small thread pool during robotInit. Subsystem constructors submit their devices and then wait on
+ * them before touching them. Tasks must not submit other tasks, every pool thread could end up
+ * waiting on work that can never be scheduled. A device that fails or misses the boot deadline
+ * comes back null, and boot fails from report() after the whole report is printed.
+ */
+public class DeviceInitializer {
+    private static final int THREADS = 6;
+    private static final double TASK_TIMEOUT_S = 2.0;
+    private static final double BOOT_DEADLINE_S = 10.0; // from the first submit, a hung CAN device can't hold robotInit longer
+
+    private static final ArrayList<Task<?>> tasks = new ArrayList<Task<?>>();
+    private static final double bootStart = Timer.getFPGATimestamp();
+    private static final ExecutorService executor = Executors.newFixedThreadPool(THREADS, (r) -> {
+        Thread thread = new Thread(r, "DeviceInit");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static class Task<T> {
+        private final String name;
+        private final Callable<T> callable;
+        private Future<T> future;
+        private volatile double startTime = Double.NaN;
+        private volatile double endTime = Double.NaN;
+        private String problem = null;
+        private Throwable failure = null;
+
+        private Task(String name, Callable<T> callable) {
+            this.name = name;
+            this.callable = callable;
+        }
+
+        private T run() throws Exception {
+            startTime = Timer.getFPGATimestamp();
+            try {
+                return callable.call();
+            } finally {
+                endTime = Timer.getFPGATimestamp();
+            }
+        }
+
+        // Blocks until the device is configured or the boot deadline passes. Going over the per task
+        // timeout is only reported. A failed task is recorded and returns null rather than throwing,
+        // and it isn't retried: the failed attempt may already own the CAN id, a second constructor
+        // would open a duplicate device. report() throws for it once every task has had its chance.
+        public T get() {
+            try {
+                try {
+                    return future.get((long) (TASK_TIMEOUT_S * 1000), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    problem = "timed out after " + TASK_TIMEOUT_S + " s";
+                    System.err.println("DeviceInitializer: " + name + " " + problem + ", still waiting");
+                    return future.get(remainingBootMillis(), TimeUnit.MILLISECONDS);
+                }
+            } catch (TimeoutException e) {
+                fail("still running at the " + BOOT_DEADLINE_S + " s boot deadline", e);
+                future.cancel(true);
+            } catch (ExecutionException e) {
+                fail("failed (" + e.getCause() + ")", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("interrupted", e);
+            }
+            return null;
+        }
+
+        private void fail(String problem, Throwable cause) {
+            this.problem = problem;
+            failure = cause;
+            System.err.println("DeviceInitializer: " + name + " " + problem);
+        }
+    }
+
+    public static synchronized <T> Task<T> submit(String name, Callable<T> callable) {
+        Task<T> task = new Task<T>(name, callable);
+        task.future = executor.submit(task::run);
+        tasks.add(task);
+        return task;
+    }
+
+    public static Task<Void> run(String name, Runnable runnable) {
+        return submit(name, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    // Always call this, even when a subsystem constructor threw, so the report gets printed. Waits
+    // out the boot deadline for tasks nobody called get() on, then throws if any device failed
+    public static synchronized void report() {
+        int problems = 0;
+        Task<?> firstFailure = null;
+        StringBuilder builder = new StringBuilder("Device init report:\n");
+        for (Task<?> task : tasks) {
+            if (task.failure == null) {
+                try {
+                    task.future.get(remainingBootMillis(), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    task.failure = e;
+                    task.problem = "never finished";
+                    task.future.cancel(true);
+                } catch (ExecutionException e) {
+                    task.failure = e.getCause();
+                    task.problem = "failed (" + e.getCause() + ")";
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    task.failure = e;
+                    task.problem = "interrupted";
+                }
+            }
+            builder.append(String.format("  %-28s %7.1f ms%s%n",
+                task.name,
+                (task.endTime - task.startTime) * 1000.0,
+                task.problem != null ? "  " + task.problem : ""
+            ));
+            if (task.problem != null) {
+                problems++;
+            }
+            if (task.failure != null && firstFailure == null) {
+                firstFailure = task;
+            }
+        }
+        builder.append(String.format("  %d devices, %d problems, device init took %.2f s",
+            tasks.size(), problems, Timer.getFPGATimestamp() - bootStart));
+        System.err.println(builder.toString());
+        SteelTalonsLogger.post("Device init problems", problems);
+
+        executor.shutdown();
+        if (firstFailure != null) {
+            throw new RuntimeException("Couldn't initialize " + firstFailure.name, firstFailure.failure);
+        }
+    }
+
+    private static long remainingBootMillis() {
+        return Math.max(0, (long) ((bootStart + BOOT_DEADLINE_S - Timer.getFPGATimestamp()) * 1000));
+    }
+}
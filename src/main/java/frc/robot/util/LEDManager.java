@@ -37,6 +37,7 @@ public class LEDManager extends SubsystemBase {
     private boolean statusBoolean;
     private boolean thresholdReached;
     private int tickCount;
+    private int profilerSlot;
 
     private static final Color LED_OFF = new Color(0, 0, 0);
     private static final Color LED_WHITE = new Color(255, 255, 255);
@@ -56,6 +57,7 @@ public class LEDManager extends SubsystemBase {
         tickTimer = new Timer();
         statusBoolean = true;
 
+        profilerSlot = LoopProfiler.register(getName());
         instance = this;
     }
 
@@ -74,6 +76,7 @@ public class LEDManager extends SubsystemBase {
 
     @Override
     public void periodic() {
+        LoopProfiler.begin(profilerSlot);
         switch (ledState) {
             case kDisabled:
                 oscillate(LED_OFF, LED_RED, ledCount);
@@ -97,6 +100,7 @@ public class LEDManager extends SubsystemBase {
                 oscillateStrip(LED_OFF, LED_WHITE);
                 break;
         }
+        LoopProfiler.end(profilerSlot);
     }
 
     private void fillStrip(Color color) {
@@ -1,30 +1,169 @@
 package frc.robot.util.Localization;
 
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
 
 import org.photonvision.EstimatedRobotPose;
 import org.photonvision.PhotonCamera;
 import org.photonvision.PhotonPoseEstimator;
 import org.photonvision.PhotonPoseEstimator.PoseStrategy;
+import org.photonvision.common.dataflow.structures.Packet;
+import org.photonvision.targeting.PhotonPipelineResult;
 
 import edu.wpi.first.apriltag.AprilTagFieldLayout;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.networktables.RawSubscriber;
+import frc.robot.util.Replay.InputsTable;
+import frc.robot.util.Replay.LoggableInputs;
+import frc.robot.util.Replay.Replay;
 
+/**
+ * Every pipeline result the coprocessor publishes is queued by an NT listener as it arrives, the
+ * main loop drains the queue once per loop and hands all of the frames to localization instead of
+ * only the latest one. If the loop falls behind the oldest frames are dropped.
+ */
 public class ApriltagCam {
+    static final int MAX_FRAMES_PER_LOOP = 16; // 160ms of frames at 100Hz
 
     private PhotonCamera cam;
     private PhotonPoseEstimator estimator;
+    private RawSubscriber rawBytes;
+    private final ArrayBlockingQueue<Frame> frameQueue = new ArrayBlockingQueue<Frame>(MAX_FRAMES_PER_LOOP);
+    private volatile long droppedFrames = 0;
+
+    private final String inputsKey;
+    private final Inputs inputs = new Inputs();
+    private final Packet packet = new Packet(1);
+    private final PhotonPipelineResult[] results = new PhotonPipelineResult[MAX_FRAMES_PER_LOOP];
+    private int resultCount = 0;
+
+    private static class Frame {
+        final byte[] rawBytes;
+        final long receiveTimeUs;
+
+        Frame(byte[] rawBytes, long receiveTimeUs) {
+            this.rawBytes = rawBytes;
+            this.receiveTimeUs = receiveTimeUs;
+        }
+    }
+
+    // The serialized pipeline results drained this loop, back to back, exactly as the camera sent
+    // them. Decoded the same way on the robot and in replay.
+    public static class Inputs implements LoggableInputs {
+        public int frameCount;
+        public final double[] receiveTimesUs = new double[MAX_FRAMES_PER_LOOP];
+        public final double[] frameLengths = new double[MAX_FRAMES_PER_LOOP];
+        public byte[] rawBytes = new byte[4096];
+        public int rawLength;
+
+        void add(byte[] frame, long receiveTimeUs) {
+            if (rawLength + frame.length > rawBytes.length) {
+                rawBytes = Arrays.copyOf(rawBytes, Math.max(rawBytes.length * 2, rawLength + frame.length));
+            }
+            System.arraycopy(frame, 0, rawBytes, rawLength, frame.length);
+            rawLength += frame.length;
+            receiveTimesUs[frameCount] = receiveTimeUs;
+            frameLengths[frameCount] = frame.length;
+            frameCount++;
+        }
+
+        @Override
+        public void toLog(InputsTable table) {
+            table.put("ReceiveTimesUs", receiveTimesUs, frameCount);
+            table.put("FrameLengths", frameLengths, frameCount);
+            table.put("RawBytes", rawBytes, rawLength);
+        }
+
+        @Override
+        public void fromLog(InputsTable table) {
+            double[] loggedTimes = table.getDoubleArray("ReceiveTimesUs");
+            double[] loggedLengths = table.getDoubleArray("FrameLengths");
+            frameCount = Math.min(Math.min(loggedTimes.length, loggedLengths.length), MAX_FRAMES_PER_LOOP);
+            System.arraycopy(loggedTimes, 0, receiveTimesUs, 0, frameCount);
+            System.arraycopy(loggedLengths, 0, frameLengths, 0, frameCount);
+            rawBytes = table.getRaw("RawBytes");
+            rawLength = rawBytes.length;
+        }
+    }
 
     public ApriltagCam(String name, Transform3d robotToCam, AprilTagFieldLayout fieldLayout) {
         cam = new PhotonCamera(name);
         estimator = new PhotonPoseEstimator(fieldLayout, PoseStrategy.MULTI_TAG_PNP_ON_COPROCESSOR, cam, robotToCam);
         estimator.setMultiTagFallbackStrategy(PoseStrategy.CLOSEST_TO_REFERENCE_POSE);
+        inputsKey = "Vision/" + name;
+
+        // same topic and options PhotonCamera subscribes with, sendAll keeps every frame for the listener
+        rawBytes = NetworkTableInstance.getDefault().getTable("photonvision").getSubTable(name).getRawTopic("rawBytes")
+            .subscribe("rawBytes", new byte[] {}, PubSubOption.periodic(0.01), PubSubOption.sendAll(true));
+        if (!Replay.isReplay()) {
+            NetworkTableInstance.getDefault().addListener(rawBytes, EnumSet.of(NetworkTableEvent.Kind.kValueAll), this::onFrame);
+        }
+    }
+
+    // NT listener thread
+    private void onFrame(NetworkTableEvent event) {
+        Frame frame = new Frame(event.valueData.value.getRaw(), event.valueData.value.getTime());
+        while (!frameQueue.offer(frame)) {
+            if (frameQueue.poll() != null) {
+                droppedFrames++;
+            }
+        }
+    }
+
+    public void updateInputs() {
+        if (!Replay.isReplay()) {
+            inputs.frameCount = 0;
+            inputs.rawLength = 0;
+            Frame frame;
+            while (inputs.frameCount < MAX_FRAMES_PER_LOOP && (frame = frameQueue.poll()) != null) {
+                inputs.add(frame.rawBytes, frame.receiveTimeUs);
+            }
+        }
+        Replay.processInputs(inputsKey, inputs);
+        resultCount = decodeFrames(inputs, packet, results);
     }
 
-    public Optional<EstimatedRobotPose> getUpdate(Pose2d refPose) {
+    // Same decoding as PhotonCamera.getLatestResult, frames arrive in order so results stay sorted
+    static int decodeFrames(Inputs inputs, Packet packet, PhotonPipelineResult[] results) {
+        int resultCount = 0;
+        int offset = 0;
+        for (int i = 0; i < inputs.frameCount; i++) {
+            int length = (int) inputs.frameLengths[i];
+            if (length < 1 || offset + length > inputs.rawLength) {
+                break;
+            }
+            PhotonPipelineResult result = new PhotonPipelineResult();
+            packet.clear();
+            packet.setData(Arrays.copyOfRange(inputs.rawBytes, offset, offset + length));
+            result.createFromPacket(packet);
+            result.setTimestampSeconds((inputs.receiveTimesUs[i] / 1e6) - result.getLatencyMillis() / 1e3);
+            results[resultCount++] = result;
+            offset += length;
+        }
+        return resultCount;
+    }
+
+    public int getFrameCount() {
+        return resultCount;
+    }
+
+    public double getFrameTimestamp(int frame) {
+        return results[frame].getTimestampSeconds();
+    }
+
+    public Optional<EstimatedRobotPose> getUpdate(int frame, Pose2d refPose) {
         estimator.setReferencePose(refPose);
-        return estimator.update();
+        return estimator.update(results[frame]);
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames;
     }
 
     public String getName() {
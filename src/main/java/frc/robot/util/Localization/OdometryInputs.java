@@ -0,0 +1,58 @@
+package frc.robot.util.Localization;
+
+import frc.robot.util.Replay.InputsTable;
+import frc.robot.util.Replay.LoggableInputs;
+
+// The odometry thread samples drained in one loop, module values are flattened sample by sample
+public class OdometryInputs implements LoggableInputs {
+    private final int moduleCount;
+    public int count = 0;
+    public final double[] timestamps;
+    public final double[] gyroYawRad;
+    public final double[] drivePositionsMeters;
+    public final double[] steerAnglesRad;
+
+    public OdometryInputs(int capacity, int moduleCount) {
+        this.moduleCount = moduleCount;
+        timestamps = new double[capacity];
+        gyroYawRad = new double[capacity];
+        drivePositionsMeters = new double[capacity * moduleCount];
+        steerAnglesRad = new double[capacity * moduleCount];
+    }
+
+    public void drain(OdometrySampleBuffer buffer) {
+        count = 0;
+        while (!buffer.isEmpty() && count < timestamps.length) {
+            timestamps[count] = buffer.getTimestamp();
+            gyroYawRad[count] = buffer.getGyroYawRad();
+            for (int i = 0; i < moduleCount; i++) {
+                drivePositionsMeters[count * moduleCount + i] = buffer.getDrivePositionMeters(i);
+                steerAnglesRad[count * moduleCount + i] = buffer.getSteerAngleRad(i);
+            }
+            buffer.pop();
+            count++;
+        }
+    }
+
+    @Override
+    public void toLog(InputsTable table) {
+        table.put("Timestamps", timestamps, count);
+        table.put("GyroYawRad", gyroYawRad, count);
+        table.put("DrivePositionsMeters", drivePositionsMeters, count * moduleCount);
+        table.put("SteerAnglesRad", steerAnglesRad, count * moduleCount);
+    }
+
+    @Override
+    public void fromLog(InputsTable table) {
+        double[] loggedTimestamps = table.getDoubleArray("Timestamps");
+        count = Math.min(loggedTimestamps.length, timestamps.length);
+        System.arraycopy(loggedTimestamps, 0, timestamps, 0, count);
+        copy(table.getDoubleArray("GyroYawRad"), gyroYawRad, count);
+        copy(table.getDoubleArray("DrivePositionsMeters"), drivePositionsMeters, count * moduleCount);
+        copy(table.getDoubleArray("SteerAnglesRad"), steerAnglesRad, count * moduleCount);
+    }
+
+    private static void copy(double[] from, double[] to, int length) {
+        System.arraycopy(from, 0, to, 0, Math.min(from.length, length));
+    }
+}
@@ -0,0 +1,82 @@
+package frc.robot.util.Localization;
+
+/**
+ * Single-producer/single-consumer ring buffer of timestamped odometry samples. The odometry thread
+ * is the only writer and the main robot loop is the only reader, so publishing the head/tail
+ * indices through volatile writes is enough to hand samples across without locking.
+ */
+public class OdometrySampleBuffer {
+    private final int moduleCount;
+    private final int mask;
+    private final double[] timestamps;
+    private final double[] gyroYawRad;
+    private final double[] drivePositionsMeters;
+    private final double[] steerAnglesRad;
+
+    private volatile long head = 0; // next slot the producer writes
+    private volatile long tail = 0; // next slot the consumer reads
+    private volatile long dropped = 0;
+
+    public OdometrySampleBuffer(int capacityPowerOfTwo, int moduleCount) {
+        if (Integer.bitCount(capacityPowerOfTwo) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two");
+        }
+        this.moduleCount = moduleCount;
+        this.mask = capacityPowerOfTwo - 1;
+        timestamps = new double[capacityPowerOfTwo];
+        gyroYawRad = new double[capacityPowerOfTwo];
+        drivePositionsMeters = new double[capacityPowerOfTwo * moduleCount];
+        steerAnglesRad = new double[capacityPowerOfTwo * moduleCount];
+    }
+
+    // Producer side
+
+    public boolean offer(double timestamp, double yawRad, double[] drivePositions, double[] steerAngles) {
+        long h = head;
+        if (h - tail > mask) {
+            dropped++;
+            return false;
+        }
+        int slot = (int) (h & mask);
+        timestamps[slot] = timestamp;
+        gyroYawRad[slot] = yawRad;
+        System.arraycopy(drivePositions, 0, drivePositionsMeters, slot * moduleCount, moduleCount);
+        System.arraycopy(steerAngles, 0, steerAnglesRad, slot * moduleCount, moduleCount);
+        head = h + 1;
+        return true;
+    }
+
+    // Consumer side, all accessors read the oldest unread sample
+
+    public boolean isEmpty() {
+        return tail == head;
+    }
+
+    public double getTimestamp() {
+        return timestamps[(int) (tail & mask)];
+    }
+
+    public double getGyroYawRad() {
+        return gyroYawRad[(int) (tail & mask)];
+    }
+
+    public double getDrivePositionMeters(int module) {
+        return drivePositionsMeters[(int) (tail & mask) * moduleCount + module];
+    }
+
+    public double getSteerAngleRad(int module) {
+        return steerAnglesRad[(int) (tail & mask) * moduleCount + module];
+    }
+
+    public void pop() {
+        tail = tail + 1;
+    }
+
+    public void clear() {
+        tail = head;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+}
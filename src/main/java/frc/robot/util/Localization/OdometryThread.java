@@ -0,0 +1,86 @@
+package frc.robot.util.Localization;
+
+import java.util.List;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.StatusSignal;
+
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.subsystems.Swerve.SwerveDrivetrain;
+import frc.robot.subsystems.Swerve.SwerveModule;
+import frc.robot.util.MiscUtil;
+
+/**
+ * Samples drive positions, steer angles and gyro yaw well above the main loop rate and queues them
+ * for SteelTalonsLocalization to replay into the pose estimator. Uses cloned status signals so the
+ * main thread's own signal objects are never refreshed from two threads.
+ */
+public class OdometryThread extends Thread {
+    public static final double FREQUENCY_HZ = 200.0;
+    public static final int BUFFER_CAPACITY = 64; // ~320ms of samples at 200Hz
+
+    private final List<SwerveModule> modules;
+    private final OdometrySampleBuffer buffer;
+    private final StatusSignal<Double>[] drivePositions;
+    private final StatusSignal<Double>[] driveVelocities;
+    private final StatusSignal<Double> yaw;
+    private final StatusSignal<Double> yawRate;
+    private final BaseStatusSignal[] allSignals;
+    private final double[] drivePositionScratch;
+    private final double[] steerAngleScratch;
+
+    @SuppressWarnings("unchecked")
+    public OdometryThread(SwerveDrivetrain drivetrain) {
+        super("OdometryThread");
+        setDaemon(true);
+
+        modules = drivetrain.getModules();
+        buffer = new OdometrySampleBuffer(BUFFER_CAPACITY, modules.size());
+        drivePositions = new StatusSignal[modules.size()];
+        driveVelocities = new StatusSignal[modules.size()];
+        allSignals = new BaseStatusSignal[modules.size() * 2 + 2];
+
+        for (int i = 0; i < modules.size(); i++) {
+            drivePositions[i] = modules.get(i).getDriveMotor().getPosition().clone();
+            driveVelocities[i] = modules.get(i).getDriveMotor().getVelocity().clone();
+            allSignals[i * 2] = drivePositions[i];
+            allSignals[i * 2 + 1] = driveVelocities[i];
+        }
+        yaw = drivetrain.getGyro().getYaw().clone();
+        yawRate = drivetrain.getGyro().getAngularVelocityZWorld().clone();
+        allSignals[allSignals.length - 2] = yaw;
+        allSignals[allSignals.length - 1] = yawRate;
+
+        drivePositionScratch = new double[modules.size()];
+        steerAngleScratch = new double[modules.size()];
+
+        BaseStatusSignal.setUpdateFrequencyForAll(FREQUENCY_HZ, allSignals);
+    }
+
+    public OdometrySampleBuffer getBuffer() {
+        return buffer;
+    }
+
+    @Override
+    public void run() {
+        while (!isInterrupted()) {
+            StatusCode status = BaseStatusSignal.waitForAll(2.0 / FREQUENCY_HZ, allSignals);
+            if (!status.isOK()) {
+                Timer.delay(1.0 / FREQUENCY_HZ);
+                continue;
+            }
+
+            double timestamp = Timer.getFPGATimestamp() - yaw.getTimestamp().getLatency();
+            for (int i = 0; i < modules.size(); i++) {
+                drivePositionScratch[i] = MiscUtil.DTrotToMeters(
+                    BaseStatusSignal.getLatencyCompensatedValue(drivePositions[i], driveVelocities[i])
+                );
+                steerAngleScratch[i] = modules.get(i).getSteerPosition();
+            }
+            double yawRad = Math.toRadians(BaseStatusSignal.getLatencyCompensatedValue(yaw, yawRate));
+
+            buffer.offer(timestamp, yawRad, drivePositionScratch, steerAngleScratch);
+        }
+    }
+}
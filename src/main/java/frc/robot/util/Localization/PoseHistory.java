@@ -0,0 +1,98 @@
+package frc.robot.util.Localization;
+
+import edu.wpi.first.math.MathUtil;
+
+/**
+ * Fixed-size ring of timestamped field poses kept in primitive arrays, oldest entries are
+ * overwritten. Lookups binary search the timestamps and interpolate between the two neighbouring
+ * samples, heading is interpolated the short way around. Main thread only.
+ */
+public class PoseHistory {
+    private final int mask;
+    private final double[] timestamps;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] headings;
+    private long head = 0; // next slot written
+    private int size = 0;
+
+    public PoseHistory(int capacityPowerOfTwo) {
+        if (Integer.bitCount(capacityPowerOfTwo) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two");
+        }
+        mask = capacityPowerOfTwo - 1;
+        timestamps = new double[capacityPowerOfTwo];
+        xs = new double[capacityPowerOfTwo];
+        ys = new double[capacityPowerOfTwo];
+        headings = new double[capacityPowerOfTwo];
+    }
+
+    // Samples have to come in time order, anything not newer than the last sample is ignored
+    public void add(double timestamp, double x, double y, double headingRad) {
+        if (size > 0 && timestamp <= timestamps[slot(size - 1)]) {
+            return;
+        }
+        int slot = (int) (head & mask);
+        timestamps[slot] = timestamp;
+        xs[slot] = x;
+        ys[slot] = y;
+        headings[slot] = headingRad;
+        head++;
+        if (size <= mask) {
+            size++;
+        }
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public double getOldestTimestamp() {
+        return size > 0 ? timestamps[slot(0)] : Double.NaN;
+    }
+
+    public double getNewestTimestamp() {
+        return size > 0 ? timestamps[slot(size - 1)] : Double.NaN;
+    }
+
+    /**
+     * Fills out with {x, y, heading} at the given FPGA time. Returns false without touching out if
+     * the time isn't covered by the history.
+     */
+    public boolean sample(double timestamp, double[] out) {
+        if (size == 0 || timestamp < timestamps[slot(0)] || timestamp > timestamps[slot(size - 1)]) {
+            return false;
+        }
+
+        // first logical index with a timestamp >= the one asked for
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[slot(mid)] < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        int upper = slot(low);
+        if (low == 0 || timestamps[upper] == timestamp) {
+            out[0] = xs[upper];
+            out[1] = ys[upper];
+            out[2] = headings[upper];
+            return true;
+        }
+        int lower = slot(low - 1);
+        double t = (timestamp - timestamps[lower]) / (timestamps[upper] - timestamps[lower]);
+        out[0] = xs[lower] + (xs[upper] - xs[lower]) * t;
+        out[1] = ys[lower] + (ys[upper] - ys[lower]) * t;
+        out[2] = MathUtil.angleModulus(headings[lower] + MathUtil.angleModulus(headings[upper] - headings[lower]) * t);
+        return true;
+    }
+
+    // logical index 0 is the oldest sample still kept
+    private int slot(int index) {
+        return (int) ((head - size + index) & mask);
+    }
+}
@@ -0,0 +1,60 @@
+package frc.robot.util.Localization;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.photonvision.EstimatedRobotPose;
+import org.photonvision.targeting.PhotonTrackedTarget;
+
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.geometry.Pose2d;
+
+/**
+ * Standard deviations grow with the square of the average tag distance and with how fast the
+ * robot is moving/turning (motion blur, latency error), and shrink with the number of tags seen.
+ * Heading is only taken from multi-tag solves, single tags are also penalized for pose ambiguity
+ * and dropped when they are ambiguous or far away.
+ */
+public class ScaledStdDevModel implements VisionStdDevModel {
+    private static final double XY_STD_AT_1M = 0.04; // one tag, 1m away, robot stopped
+    private static final double THETA_STD_AT_1M = 0.08;
+    private static final double SPEED_GAIN = 0.5; // per m/s
+    private static final double OMEGA_GAIN = 1.0; // per rad/s
+    private static final double AMBIGUITY_GAIN = 5.0;
+    private static final double MAX_AMBIGUITY = 0.2;
+    private static final double MAX_SINGLE_TAG_DISTANCE_M = 4.5;
+
+    @Override
+    public Optional<SteelTalonsVisionMeasurement> measure(EstimatedRobotPose estimate, Pose2d refPose, Optional<Pose2d> lastPose, double speedMps, double omegaRadPerSec) {
+        Pose2d pose = estimate.estimatedPose.toPose2d();
+        List<PhotonTrackedTarget> targets = estimate.targetsUsed;
+        int tagCount = targets.size();
+        if (tagCount == 0 || !LocalizationUtil.onField(pose)) {
+            return Optional.empty();
+        }
+
+        double distanceSum = 0.0;
+        double maxAmbiguity = 0.0;
+        for (int i = 0; i < tagCount; i++) {
+            PhotonTrackedTarget target = targets.get(i);
+            distanceSum += target.getBestCameraToTarget().getTranslation().getNorm();
+            maxAmbiguity = Math.max(maxAmbiguity, target.getPoseAmbiguity());
+        }
+        double averageDistance = distanceSum / tagCount;
+
+        double scale = averageDistance * averageDistance / tagCount * (1.0 + SPEED_GAIN * speedMps + OMEGA_GAIN * Math.abs(omegaRadPerSec));
+        double thetaStd;
+        if (tagCount == 1) {
+            if (maxAmbiguity > MAX_AMBIGUITY || averageDistance > MAX_SINGLE_TAG_DISTANCE_M) {
+                return Optional.empty();
+            }
+            scale *= 1.0 + AMBIGUITY_GAIN * Math.max(maxAmbiguity, 0.0);
+            thetaStd = Double.MAX_VALUE;
+        } else {
+            thetaStd = THETA_STD_AT_1M * scale;
+        }
+        double xyStd = XY_STD_AT_1M * scale;
+
+        return Optional.of(new SteelTalonsVisionMeasurement(pose, VecBuilder.fill(xyStd, xyStd, thetaStd), estimate.timestampSeconds));
+    }
+}
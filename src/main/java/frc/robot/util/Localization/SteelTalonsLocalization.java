@@ -1,11 +1,10 @@
 package frc.robot.util.Localization;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Optional;
 
 import edu.wpi.first.apriltag.AprilTagFieldLayout;
-import edu.wpi.first.apriltag.AprilTagFields;
+import edu.wpi.first.math.Matrix;
 import edu.wpi.first.math.VecBuilder;
 import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
 import edu.wpi.first.math.geometry.Pose2d;
@@ -14,6 +13,9 @@ import edu.wpi.first.math.geometry.Rotation3d;
 import edu.wpi.first.math.geometry.Transform3d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.kinematics.SwerveDriveWheelPositions;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Timer;
@@ -22,48 +24,87 @@ import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.RobotContainer;
 import frc.robot.subsystems.Swerve.DrivetrainConstants;
 import frc.robot.subsystems.Swerve.SwerveDrivetrain;
+import frc.robot.util.LoopProfiler;
 import frc.robot.util.MiscUtil;
+import frc.robot.util.RobotState;
 import frc.robot.util.SteelTalonsLogger;
+import frc.robot.util.Replay.Replay;
 
 public class SteelTalonsLocalization extends SubsystemBase {
 
     private static SteelTalonsLocalization instance;
     private AprilTagFieldLayout aprilTagFieldLayout;
     private ArrayList<ApriltagCam> camList;
+    private int[] frameCursors;
     private Optional<Pose2d> lastPose = Optional.empty();
 
-    private final String leftCamName = "leftcam";
-    private final String rightCamName = "rightcam";
-    private final Transform3d leftRobotToCam = new Transform3d(Units.inchesToMeters(-12.842), Units.inchesToMeters(11.992), Units.inchesToMeters(9.385), new Rotation3d(0, Math.toRadians(-35), Math.PI));
-    private final Transform3d rightRobotToCam = new Transform3d(Units.inchesToMeters(-12.842), Units.inchesToMeters(-11.992), Units.inchesToMeters(9.385), new Rotation3d(0, Math.toRadians(-35), Math.PI));
+    static final String LEFT_CAM_NAME = "leftcam";
+    static final String RIGHT_CAM_NAME = "rightcam";
+    static final Transform3d LEFT_ROBOT_TO_CAM = new Transform3d(Units.inchesToMeters(-12.842), Units.inchesToMeters(11.992), Units.inchesToMeters(9.385), new Rotation3d(0, Math.toRadians(-35), Math.PI));
+    static final Transform3d RIGHT_ROBOT_TO_CAM = new Transform3d(Units.inchesToMeters(-12.842), Units.inchesToMeters(-11.992), Units.inchesToMeters(9.385), new Rotation3d(0, Math.toRadians(-35), Math.PI));
+    // heading isn't fully trusted to the gyro anymore so multi-tag solves can correct it
+    static final Matrix<N3, N1> STATE_STD_DEVS = VecBuilder.fill(0.25, 0.25, 0.02);
+    static final Matrix<N3, N1> DEFAULT_VISION_STD_DEVS = VecBuilder.fill(0.03, 0.03, Double.MAX_VALUE);
+
+    private VisionStdDevModel stdDevModel = new ScaledStdDevModel();
 
     private SwerveDrivePoseEstimator poseEstimator;
 
     private Field2d field;
+    private OdometryThread odometryThread;
+    private OdometrySampleBuffer odometryBuffer;
+    private OdometryInputs odometryInputs;
+    private final PoseHistory poseHistory = new PoseHistory(256); // ~1.3s at the odometry rate
+    private SwerveModulePosition[] odometryPositions;
+    // Rotation2d is immutable, so the positions' angles and the yaw are only rebuilt when the
+    // sample actually moved, most samples repeat the previous steer angles
+    private double[] odometryAnglesRad; // starts at 0, same as a new position's angle
+    private double odometryYawRad = Double.NaN;
+    private Rotation2d odometryYaw = new Rotation2d();
+    private int profilerSlot;
+    private final SteelTalonsLogger.DoubleHandle odometrySamplesLog = SteelTalonsLogger.doubleHandle("Odometry samples per loop");
+    private final SteelTalonsLogger.DoubleHandle odometryDroppedLog = SteelTalonsLogger.doubleHandle("Odometry samples dropped");
+    private final SteelTalonsLogger.DoubleHandle visionFramesLog = SteelTalonsLogger.doubleHandle("Vision frames per loop");
+    private final SteelTalonsLogger.DoubleHandle visionDroppedLog = SteelTalonsLogger.doubleHandle("Vision frames dropped");
+    private final SteelTalonsLogger.DoubleHandle parallelLog = SteelTalonsLogger.doubleHandle("targeting information parallel");
+    private final SteelTalonsLogger.DoubleHandle perpLog = SteelTalonsLogger.doubleHandle("targeting information perp");
+    private final SteelTalonsLogger.DoubleHandle distanceLog = SteelTalonsLogger.doubleHandle("targeting information distance");
+    private final SteelTalonsLogger.DoubleHandle angErrorLog = SteelTalonsLogger.doubleHandle("targeting information angError");
+    private final SteelTalonsLogger.DoubleHandle cameraDistanceLog = SteelTalonsLogger.doubleHandle("camera based targeting distance");
 
     public SteelTalonsLocalization() {
         instance = this;
-        try {
-            aprilTagFieldLayout = AprilTagFieldLayout.loadFromResource(AprilTagFields.k2024Crescendo.m_resourceFile);
-        } catch (IOException ex) {
-            System.err.println("Couldn't load field");
-        }
+        profilerSlot = LoopProfiler.register(getName());
+        aprilTagFieldLayout = LocalizationUtil.loadFieldLayout();
 
         camList = new ArrayList<ApriltagCam>();
 
-        camList.add(new ApriltagCam(leftCamName, leftRobotToCam, aprilTagFieldLayout));
-        camList.add(new ApriltagCam(rightCamName, rightRobotToCam, aprilTagFieldLayout));
+        camList.add(new ApriltagCam(LEFT_CAM_NAME, LEFT_ROBOT_TO_CAM, aprilTagFieldLayout));
+        camList.add(new ApriltagCam(RIGHT_CAM_NAME, RIGHT_ROBOT_TO_CAM, aprilTagFieldLayout));
+        frameCursors = new int[camList.size()];
 
         poseEstimator = new SwerveDrivePoseEstimator(
             DrivetrainConstants.SWERVE_DRIVE_KINEMATICS, 
             SwerveDrivetrain.getInstance().getRotation(), 
             SwerveDrivetrain.getInstance().getWheelPositions().positions, 
             new Pose2d(), 
-            VecBuilder.fill(0.25, 0.25, 0.0), 
-            VecBuilder.fill(0.03, 0.03, Double.MAX_VALUE)
+            STATE_STD_DEVS, 
+            DEFAULT_VISION_STD_DEVS
         );
 
         field = new Field2d();
+
+        odometryPositions = new SwerveModulePosition[SwerveDrivetrain.getInstance().getModules().size()];
+        odometryAnglesRad = new double[odometryPositions.length];
+        for (int i = 0; i < odometryPositions.length; i++) {
+            odometryPositions[i] = new SwerveModulePosition();
+        }
+        odometryInputs = new OdometryInputs(OdometryThread.BUFFER_CAPACITY, odometryPositions.length);
+        if (!Replay.isReplay()) { // replayed samples come from the log
+            odometryThread = new OdometryThread(SwerveDrivetrain.getInstance());
+            odometryBuffer = odometryThread.getBuffer();
+            odometryThread.start();
+        }
     }
 
     public static SteelTalonsLocalization getInstance() {
@@ -72,35 +113,118 @@ public class SteelTalonsLocalization extends SubsystemBase {
 
     @Override
     public void periodic() {
-        SwerveDriveWheelPositions dtWheelPositions = SwerveDrivetrain.getInstance().getWheelPositions();
-        Rotation2d gyroAngle = SwerveDrivetrain.getInstance().getRotation();
-        poseEstimator.update(gyroAngle, dtWheelPositions);
-        Pose2d refPose = poseEstimator.getEstimatedPosition();
-
+        LoopProfiler.begin(profilerSlot);
+        int odometrySamples = updateOdometry();
+        if (odometrySamples == 0) { // odometry thread hasn't produced anything, fall back to the cached values
+            SwerveDriveWheelPositions dtWheelPositions = SwerveDrivetrain.getInstance().getWheelPositions();
+            Rotation2d gyroAngle = SwerveDrivetrain.getInstance().getRotation();
+            poseEstimator.update(gyroAngle, dtWheelPositions);
+            addToHistory(Timer.getFPGATimestamp());
+        }
+        odometrySamplesLog.set(odometrySamples);
+        if (odometryBuffer != null) {
+            odometryDroppedLog.set(odometryBuffer.getDropped());
+        }
         field.setRobotPose(getPose());
         SteelTalonsLogger.postComplex("Field 2d", field);
 
-        if (camList != null && !DriverStation.isAutonomous()) {
-            for (ApriltagCam cam : camList) {
-                Optional<SteelTalonsVisionMeasurement> estimate = LocalizationUtil.findConfidence(cam.getUpdate(refPose), refPose, lastPose);
-                if (estimate.isPresent()) {
-                    SteelTalonsVisionMeasurement m = estimate.get();
-                    SteelTalonsLogger.post("Vision measurement", String.valueOf(m.getConfidence().get(0, 0)) + " - " + Timer.getFPGATimestamp());
-                    poseEstimator.addVisionMeasurement(m.getPose(), m.getTimestamp(), m.getConfidence());
-                    lastPose = Optional.of(m.getPose());
-                    field.getObject(cam.getName()).setPose(m.getPose());
-                } else {
-                    lastPose = Optional.empty();
-                }
+        // queues are drained every loop, even when the frames get ignored, so nothing stale is left for later
+        long droppedFrames = 0;
+        for (int i = 0; i < camList.size(); i++) {
+            camList.get(i).updateInputs();
+            frameCursors[i] = 0;
+            droppedFrames += camList.get(i).getDroppedFrames();
+        }
+        visionDroppedLog.set(droppedFrames);
+
+        if (!DriverStation.isAutonomous()) {
+            int frames = 0;
+            int next;
+            while ((next = nextFrameCam()) >= 0) {
+                addVisionFrame(camList.get(next), frameCursors[next]++);
+                frames++;
             }
+            visionFramesLog.set(frames);
+        }
+
+        // everything after this in the loop reads the snapshot instead of the estimator/drivetrain
+        RobotState.update(getPose(), SwerveDrivetrain.getInstance().getVelocityVector());
 
+        parallelLog.set(RobotState.getParallelSpeed());
+        perpLog.set(RobotState.getPerpSpeed());
+        distanceLog.set(RobotState.getSpeakerDistance());
+        angErrorLog.set(RobotState.getAngErrorRad());
+        cameraDistanceLog.set(RobotContainer.getTagCam().speakerDist());
+        LoopProfiler.end(profilerSlot);
+    }
+
+    // Merges the cameras' frames so the estimator always gets measurements in timestamp order
+    private int nextFrameCam() {
+        int next = -1;
+        double nextTimestamp = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < camList.size(); i++) {
+            ApriltagCam cam = camList.get(i);
+            if (frameCursors[i] < cam.getFrameCount() && cam.getFrameTimestamp(frameCursors[i]) < nextTimestamp) {
+                next = i;
+                nextTimestamp = cam.getFrameTimestamp(frameCursors[i]);
+            }
         }
+        return next;
+    }
 
-        SteelTalonsLogger.post("targeting information parallel", MiscUtil.targetingInformation()[0]);
-        SteelTalonsLogger.post("targeting information perp", MiscUtil.targetingInformation()[1]);
-        SteelTalonsLogger.post("targeting information distance", MiscUtil.targetingInformation()[2]);
-        SteelTalonsLogger.post("targeting information angError", MiscUtil.targetingInformation()[3]);
-        SteelTalonsLogger.post("camera based targeting distance", RobotContainer.getTagCam().speakerDist());
+    private void addVisionFrame(ApriltagCam cam, int frame) {
+        Pose2d refPose = poseEstimator.getEstimatedPosition();
+        Optional<SteelTalonsVisionMeasurement> estimate = LocalizationUtil.findConfidence(stdDevModel, cam.getUpdate(frame, refPose), refPose, lastPose);
+        if (estimate.isPresent()) {
+            SteelTalonsVisionMeasurement m = estimate.get();
+            SteelTalonsLogger.post("Vision measurement", String.valueOf(m.getConfidence().get(0, 0)) + " - " + Timer.getFPGATimestamp());
+            poseEstimator.addVisionMeasurement(m.getPose(), m.getTimestamp(), m.getConfidence());
+            lastPose = Optional.of(m.getPose());
+            field.getObject(cam.getName()).setPose(m.getPose());
+        } else {
+            lastPose = Optional.empty();
+        }
+    }
+
+    private int updateOdometry() {
+        if (!Replay.isReplay()) {
+            odometryInputs.drain(odometryBuffer);
+        }
+        Replay.processInputs("Odometry", odometryInputs);
+
+        int modules = odometryPositions.length;
+        for (int s = 0; s < odometryInputs.count; s++) {
+            for (int i = 0; i < modules; i++) {
+                odometryPositions[i].distanceMeters = odometryInputs.drivePositionsMeters[s * modules + i];
+                double angleRad = odometryInputs.steerAnglesRad[s * modules + i];
+                if (angleRad != odometryAnglesRad[i]) {
+                    odometryAnglesRad[i] = angleRad;
+                    odometryPositions[i].angle = new Rotation2d(angleRad);
+                }
+            }
+            double yawRad = odometryInputs.gyroYawRad[s];
+            if (yawRad != odometryYawRad) {
+                odometryYawRad = yawRad;
+                odometryYaw = new Rotation2d(yawRad);
+            }
+            poseEstimator.updateWithTime(odometryInputs.timestamps[s], odometryYaw, odometryPositions);
+            addToHistory(odometryInputs.timestamps[s]);
+        }
+        return odometryInputs.count;
+    }
+
+    private void addToHistory(double timestamp) {
+        Pose2d pose = poseEstimator.getEstimatedPosition();
+        poseHistory.add(timestamp, pose.getX(), pose.getY(), pose.getRotation().getRadians());
+    }
+
+    // Where the robot was at a past FPGA time, for lining up latent sensor data with the present
+    public PoseHistory getPoseHistory() {
+        return poseHistory;
+    }
+
+    public void setStdDevModel(VisionStdDevModel stdDevModel) {
+        this.stdDevModel = stdDevModel;
     }
 
     public Pose2d getPose() {
@@ -108,6 +232,10 @@ public class SteelTalonsLocalization extends SubsystemBase {
     }
 
     public void resetPose(Pose2d newPose) {
+        if (odometryBuffer != null) { // samples queued before the reset would be replayed on top of the new pose
+            odometryBuffer.clear();
+        }
+        poseHistory.clear();
         poseEstimator.resetPosition(
             SwerveDrivetrain.getInstance().getRotation(), 
             SwerveDrivetrain.getInstance().getWheelPositions().positions, 
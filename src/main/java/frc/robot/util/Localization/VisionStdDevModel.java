@@ -0,0 +1,16 @@
+package frc.robot.util.Localization;
+
+import java.util.Optional;
+
+import org.photonvision.EstimatedRobotPose;
+
+import edu.wpi.first.math.geometry.Pose2d;
+
+/**
+ * Turns a camera pose estimate into a measurement with x/y/theta standard deviations for the pose
+ * estimator, or nothing if the estimate shouldn't be used. Speeds are passed in rather than read
+ * from RobotState so offline tools can drive the model directly.
+ */
+public interface VisionStdDevModel {
+    public Optional<SteelTalonsVisionMeasurement> measure(EstimatedRobotPose estimate, Pose2d refPose, Optional<Pose2d> lastPose, double speedMps, double omegaRadPerSec);
+}
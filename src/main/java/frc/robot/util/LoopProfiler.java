@@ -0,0 +1,204 @@
+package frc.robot.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StringArrayPublisher;
+import edu.wpi.first.networktables.StringPublisher;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+
+/**
+ * Times every subsystem periodic and every executing command inside CommandScheduler.run().
+ * Subsystems call begin/end around their periodic, commands are timed through the scheduler's
+ * execute hook. Everything is kept in preallocated primitive buffers so the profiler itself
+ * doesn't add to the loop time it's measuring.
+ */
+public class LoopProfiler {
+    private static final int MAX_SLOTS = 48;
+    private static final int WINDOW = 250; // 5 seconds of 20ms loops
+    private static final int STATS_PERIOD_LOOPS = 50;
+    private static final int ATTRIBUTION_COUNT = 3;
+    private static final double BUDGET_MS = TimedRobot.kDefaultPeriod * 1000.0;
+    private static final double OVERRUN_TOLERANCE_MS = 0.5;
+
+    private static final String[] names = new String[MAX_SLOTS];
+    private static final double[] loopMs = new double[MAX_SLOTS];
+    private static final long[] startNanos = new long[MAX_SLOTS];
+    private static final double[][] history = new double[MAX_SLOTS][WINDOW];
+    private static final double[] scratch = new double[WINDOW];
+    private static final double[] p50Ms = new double[MAX_SLOTS];
+    private static final double[] p99Ms = new double[MAX_SLOTS];
+    private static final double[] maxMs = new double[MAX_SLOTS];
+    private static final boolean[] attributed = new boolean[MAX_SLOTS];
+    // keyed by name, commands built per trigger or per auto are new instances every time they're scheduled
+    private static final HashMap<String, Integer> commandSlots = new HashMap<String, Integer>();
+    private static final StringBuilder overrunBuilder = new StringBuilder(256);
+
+    private static int slotCount = 0;
+    private static int historyIdx = 0;
+    private static int historySize = 0;
+    private static int loopsSinceStats = 0;
+    private static long loopStartNanos = 0;
+    private static long lastMarkNanos = 0;
+    private static long overrunCount = 0;
+    private static boolean namesDirty = true;
+    private static double[] publishedLoopMs = new double[0];
+    private static double[] publishedP50 = new double[0];
+    private static double[] publishedP99 = new double[0];
+    private static double[] publishedMax = new double[0];
+
+    private static final NetworkTable table = NetworkTableInstance.getDefault().getTable("LoopProfiler");
+    private static final StringArrayPublisher namesPub = table.getStringArrayTopic("Slots").publish();
+    private static final DoubleArrayPublisher loopPub = table.getDoubleArrayTopic("Loop (ms)").publish();
+    private static final DoubleArrayPublisher p50Pub = table.getDoubleArrayTopic("p50 (ms)").publish();
+    private static final DoubleArrayPublisher p99Pub = table.getDoubleArrayTopic("p99 (ms)").publish();
+    private static final DoubleArrayPublisher maxPub = table.getDoubleArrayTopic("Max (ms)").publish();
+    private static final IntegerPublisher overrunCountPub = table.getIntegerTopic("Overruns").publish();
+    private static final StringPublisher overrunPub = table.getStringTopic("Last Overrun").publish();
+
+    // reserved slots, these are never attributed as a culprit
+    private static final int PERIOD = register("Loop Period");
+    private static final int SCHEDULER = register("CommandScheduler.run()");
+    private static final int FIRST_USER_SLOT = slotCount;
+
+    public static void bindScheduler() {
+        CommandScheduler.getInstance().onCommandExecute(LoopProfiler::markCommand);
+    }
+
+    public static int register(String name) {
+        if (slotCount >= MAX_SLOTS) {
+            System.err.println("LoopProfiler out of slots, not profiling " + name);
+            return -1;
+        }
+        names[slotCount] = name;
+        namesDirty = true;
+        return slotCount++;
+    }
+
+    public static void begin(int slot) {
+        if (slot >= 0) {
+            startNanos[slot] = System.nanoTime();
+        }
+    }
+
+    public static void end(int slot) {
+        long now = System.nanoTime();
+        if (slot >= 0) {
+            loopMs[slot] += (now - startNanos[slot]) * 1e-6;
+        }
+        lastMarkNanos = now;
+    }
+
+    public static void startLoop() {
+        long now = System.nanoTime();
+        if (loopStartNanos != 0) {
+            loopMs[PERIOD] = (now - loopStartNanos) * 1e-6;
+            finishLoop();
+        }
+        Arrays.fill(loopMs, 0, slotCount, 0.0);
+        loopStartNanos = now;
+        lastMarkNanos = now;
+    }
+
+    public static void endLoop() {
+        loopMs[SCHEDULER] = (System.nanoTime() - loopStartNanos) * 1e-6;
+    }
+
+    // Execute actions fire right after Command.execute(), so the time since the previous mark is
+    // this command's execute plus whatever scheduler bookkeeping ran before it (button polling for
+    // the first command, the previous command's isFinished for the rest)
+    private static void markCommand(Command command) {
+        long now = System.nanoTime();
+        String name = command.getName();
+        Integer slot = commandSlots.get(name);
+        if (slot == null) {
+            // -1 is kept too, once per name, so running out of slots only prints once per command
+            slot = register(name);
+            commandSlots.put(name, slot);
+        }
+        if (slot >= 0) {
+            loopMs[slot] += (now - lastMarkNanos) * 1e-6;
+        }
+        lastMarkNanos = now;
+    }
+
+    private static void finishLoop() {
+        for (int i = 0; i < slotCount; i++) {
+            history[i][historyIdx] = loopMs[i];
+        }
+        historyIdx = (historyIdx + 1) % WINDOW;
+        historySize = Math.min(historySize + 1, WINDOW);
+
+        if (namesDirty) {
+            namesPub.set(Arrays.copyOf(names, slotCount));
+            publishedLoopMs = new double[slotCount];
+            publishedP50 = new double[slotCount];
+            publishedP99 = new double[slotCount];
+            publishedMax = new double[slotCount];
+            namesDirty = false;
+        }
+
+        System.arraycopy(loopMs, 0, publishedLoopMs, 0, slotCount);
+        loopPub.set(publishedLoopMs);
+
+        if (++loopsSinceStats >= STATS_PERIOD_LOOPS) {
+            loopsSinceStats = 0;
+            computeStats();
+        }
+
+        if (loopMs[PERIOD] > BUDGET_MS + OVERRUN_TOLERANCE_MS) {
+            reportOverrun();
+        }
+    }
+
+    private static void computeStats() {
+        for (int i = 0; i < slotCount; i++) {
+            System.arraycopy(history[i], 0, scratch, 0, historySize);
+            Arrays.sort(scratch, 0, historySize);
+            p50Ms[i] = scratch[(historySize - 1) / 2];
+            p99Ms[i] = scratch[Math.max(0, (int) Math.ceil(historySize * 0.99) - 1)];
+            maxMs[i] = scratch[historySize - 1];
+        }
+        System.arraycopy(p50Ms, 0, publishedP50, 0, slotCount);
+        System.arraycopy(p99Ms, 0, publishedP99, 0, slotCount);
+        System.arraycopy(maxMs, 0, publishedMax, 0, slotCount);
+        p50Pub.set(publishedP50);
+        p99Pub.set(publishedP99);
+        maxPub.set(publishedMax);
+    }
+
+    private static void reportOverrun() {
+        overrunCount++;
+        overrunCountPub.set(overrunCount);
+
+        overrunBuilder.setLength(0);
+        overrunBuilder.append("t=").append(Timer.getFPGATimestamp())
+            .append(" period=").append(loopMs[PERIOD])
+            .append("ms scheduler=").append(loopMs[SCHEDULER])
+            .append("ms outside scheduler=").append(loopMs[PERIOD] - loopMs[SCHEDULER]).append("ms");
+
+        Arrays.fill(attributed, false);
+        for (int n = 0; n < ATTRIBUTION_COUNT; n++) {
+            int worst = -1;
+            for (int i = FIRST_USER_SLOT; i < slotCount; i++) {
+                if (!attributed[i] && (worst < 0 || loopMs[i] > loopMs[worst])) {
+                    worst = i;
+                }
+            }
+            if (worst < 0 || loopMs[worst] <= 0.0) {
+                break;
+            }
+            attributed[worst] = true;
+            overrunBuilder.append(" | ").append(names[worst]).append('=').append(loopMs[worst]).append("ms");
+        }
+
+        overrunPub.set(overrunBuilder.toString());
+    }
+}
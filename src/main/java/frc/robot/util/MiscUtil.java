@@ -18,7 +18,6 @@ import edu.wpi.first.wpilibj.DriverStation.Alliance;
 import frc.robot.subsystems.Shooter.ShootingConfiguration;
 import frc.robot.subsystems.Swerve.DrivetrainConstants;
 import frc.robot.subsystems.Swerve.SwerveDrivetrain;
-import frc.robot.util.Localization.SteelTalonsLocalization;
 
 public class MiscUtil {
     public static final double fieldWidth = Units.feetToMeters(54);
@@ -122,25 +121,6 @@ public class MiscUtil {
         };
     }
 
-    public static double[] targetingInformation() { //very much a big source of potential bugs
-        SteelTalonsLocalization localization = SteelTalonsLocalization.getInstance();
-        SwerveDrivetrain drivetrain = SwerveDrivetrain.getInstance();
-        Translation2d translation = localization.translationFromSpeaker();
-        double distance = translation.getNorm();
-        Rotation2d angError = 
-            translation.getAngle(). //the angle of the line from the speaker to the bot
-            // minus(new Rotation2d(0.0)). //DID A FULL ONE EIGHTYYYYYYY, CRAZYYYY, THINKING 'BOUT THE WAY I ONCE LET THE HEARTBREAK CHANGE MEEEE
-            minus(localization.getPose().getRotation()); //minus the current angle of bot
-        ChassisSpeeds botSpeeds = drivetrain.getVelocityVector();
-        Rotation2d velocityRot = new Rotation2d(botSpeeds.vxMetersPerSecond, botSpeeds.vyMetersPerSecond);
-        double velocityMag = Math.hypot(botSpeeds.vxMetersPerSecond, botSpeeds.vyMetersPerSecond);
-
-        double parallelSpeed = velocityMag * translation.getAngle().minus(velocityRot).getSin();
-        double perpSpeed = velocityMag * translation.getAngle().minus(velocityRot).getCos();
-
-        return new double[]{-parallelSpeed, perpSpeed, distance, angError.getRadians(), translation.getAngle().getRadians()};
-    }
-
     public static double DTrotToMeters(double rotations) {
         return rotations * Math.PI * DrivetrainConstants.WHEEL_DIAMETER_METERS;
     }
@@ -150,9 +130,10 @@ public class MiscUtil {
     }
 
     public static double drivetrainSpeedMagnitude() {
-        double x = SwerveDrivetrain.getInstance().getVelocityVector().vxMetersPerSecond;
-        double y = SwerveDrivetrain.getInstance().getVelocityVector().vyMetersPerSecond;
-        return Math.hypot(x, y);
+        // drivetrain measures its speeds once at the top of its periodic, so this is current even
+        // when called from inside localization before RobotState is updated
+        ChassisSpeeds speeds = SwerveDrivetrain.getInstance().getVelocityVector();
+        return Math.hypot(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond);
     }
 
 }
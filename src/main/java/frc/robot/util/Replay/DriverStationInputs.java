@@ -0,0 +1,169 @@
+package frc.robot.util.Replay;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+
+// Mode, alliance and every joystick, replayed through DriverStationSim so commands see the same controls
+class DriverStationInputs implements LoggableInputs {
+    private static final int MAX_AXES = 12;
+    private static final int MAX_POVS = 12;
+    private static final String[] AXES_KEYS = new String[DriverStation.kJoystickPorts];
+    private static final String[] BUTTONS_KEYS = new String[DriverStation.kJoystickPorts];
+    private static final String[] BUTTON_COUNT_KEYS = new String[DriverStation.kJoystickPorts];
+    private static final String[] POVS_KEYS = new String[DriverStation.kJoystickPorts];
+
+    static {
+        for (int i = 0; i < DriverStation.kJoystickPorts; i++) {
+            AXES_KEYS[i] = "Joystick" + i + "/Axes";
+            BUTTONS_KEYS[i] = "Joystick" + i + "/Buttons";
+            BUTTON_COUNT_KEYS[i] = "Joystick" + i + "/ButtonCount";
+            POVS_KEYS[i] = "Joystick" + i + "/POVs";
+        }
+    }
+
+    boolean enabled;
+    boolean autonomous;
+    boolean test;
+    boolean eStop;
+    boolean fmsAttached;
+    long allianceStation; // AllianceStationID ordinal
+    double matchTime;
+
+    final double[][] axes = new double[DriverStation.kJoystickPorts][MAX_AXES];
+    final int[] axisCounts = new int[DriverStation.kJoystickPorts];
+    final long[] buttons = new long[DriverStation.kJoystickPorts];
+    final long[] buttonCounts = new long[DriverStation.kJoystickPorts];
+    final double[][] povs = new double[DriverStation.kJoystickPorts][MAX_POVS];
+    final int[] povCounts = new int[DriverStation.kJoystickPorts];
+
+    // what was last recorded per port. Replay holds an entry's last value, so axes and POVs are only
+    // recorded when they change, appending an array copies it and most ports sit idle
+    private final double[][] recordedAxes = new double[DriverStation.kJoystickPorts][MAX_AXES];
+    private final int[] recordedAxisCounts = new int[DriverStation.kJoystickPorts];
+    private final double[][] recordedPovs = new double[DriverStation.kJoystickPorts][MAX_POVS];
+    private final int[] recordedPovCounts = new int[DriverStation.kJoystickPorts];
+
+    DriverStationInputs() {
+        Arrays.fill(recordedAxisCounts, -1);
+        Arrays.fill(recordedPovCounts, -1);
+    }
+
+    void update() {
+        enabled = DriverStation.isEnabled();
+        autonomous = DriverStation.isAutonomous();
+        test = DriverStation.isTest();
+        eStop = DriverStation.isEStopped();
+        fmsAttached = DriverStation.isFMSAttached();
+        matchTime = DriverStation.getMatchTime();
+
+        Optional<Alliance> alliance = DriverStation.getAlliance();
+        OptionalInt location = DriverStation.getLocation();
+        if (alliance.isPresent() && location.isPresent()) {
+            allianceStation = (alliance.get() == Alliance.Red ? 0 : 3) + location.getAsInt();
+        } else {
+            allianceStation = 0;
+        }
+
+        for (int port = 0; port < DriverStation.kJoystickPorts; port++) {
+            axisCounts[port] = Math.min(DriverStation.getStickAxisCount(port), MAX_AXES);
+            for (int i = 0; i < axisCounts[port]; i++) {
+                axes[port][i] = DriverStation.getStickAxis(port, i);
+            }
+            buttons[port] = DriverStation.getStickButtons(port);
+            buttonCounts[port] = DriverStation.getStickButtonCount(port);
+            povCounts[port] = Math.min(DriverStation.getStickPOVCount(port), MAX_POVS);
+            for (int i = 0; i < povCounts[port]; i++) {
+                povs[port][i] = DriverStation.getStickPOV(port, i);
+            }
+        }
+    }
+
+    void applyToSim() {
+        DriverStationSim.setDsAttached(true);
+        DriverStationSim.setEnabled(enabled);
+        DriverStationSim.setAutonomous(autonomous);
+        DriverStationSim.setTest(test);
+        DriverStationSim.setEStop(eStop);
+        DriverStationSim.setFmsAttached(fmsAttached);
+        DriverStationSim.setMatchTime(matchTime);
+        DriverStationSim.setAllianceStationId(AllianceStationID.values()[(int) allianceStation]);
+
+        for (int port = 0; port < DriverStation.kJoystickPorts; port++) {
+            DriverStationSim.setJoystickAxisCount(port, axisCounts[port]);
+            for (int i = 0; i < axisCounts[port]; i++) {
+                DriverStationSim.setJoystickAxis(port, i, axes[port][i]);
+            }
+            DriverStationSim.setJoystickButtonCount(port, (int) buttonCounts[port]);
+            DriverStationSim.setJoystickButtons(port, (int) buttons[port]);
+            DriverStationSim.setJoystickPOVCount(port, povCounts[port]);
+            for (int i = 0; i < povCounts[port]; i++) {
+                DriverStationSim.setJoystickPOV(port, i, (int) povs[port][i]);
+            }
+        }
+        DriverStationSim.notifyNewData();
+    }
+
+    @Override
+    public void toLog(InputsTable table) {
+        table.put("Enabled", enabled);
+        table.put("Autonomous", autonomous);
+        table.put("Test", test);
+        table.put("EStop", eStop);
+        table.put("FMSAttached", fmsAttached);
+        table.put("AllianceStation", allianceStation);
+        table.put("MatchTime", matchTime);
+        for (int port = 0; port < DriverStation.kJoystickPorts; port++) {
+            if (changed(axes[port], axisCounts[port], recordedAxes[port], recordedAxisCounts[port])) {
+                table.put(AXES_KEYS[port], axes[port], axisCounts[port]);
+                System.arraycopy(axes[port], 0, recordedAxes[port], 0, axisCounts[port]);
+                recordedAxisCounts[port] = axisCounts[port];
+            }
+            table.put(BUTTONS_KEYS[port], buttons[port]);
+            table.put(BUTTON_COUNT_KEYS[port], buttonCounts[port]);
+            if (changed(povs[port], povCounts[port], recordedPovs[port], recordedPovCounts[port])) {
+                table.put(POVS_KEYS[port], povs[port], povCounts[port]);
+                System.arraycopy(povs[port], 0, recordedPovs[port], 0, povCounts[port]);
+                recordedPovCounts[port] = povCounts[port];
+            }
+        }
+    }
+
+    @Override
+    public void fromLog(InputsTable table) {
+        enabled = table.get("Enabled", false);
+        autonomous = table.get("Autonomous", false);
+        test = table.get("Test", false);
+        eStop = table.get("EStop", false);
+        fmsAttached = table.get("FMSAttached", false);
+        allianceStation = table.get("AllianceStation", 0L);
+        matchTime = table.get("MatchTime", -1.0);
+        for (int port = 0; port < DriverStation.kJoystickPorts; port++) {
+            double[] loggedAxes = table.getDoubleArray(AXES_KEYS[port]);
+            axisCounts[port] = Math.min(loggedAxes.length, MAX_AXES);
+            System.arraycopy(loggedAxes, 0, axes[port], 0, axisCounts[port]);
+            buttons[port] = table.get(BUTTONS_KEYS[port], 0L);
+            buttonCounts[port] = table.get(BUTTON_COUNT_KEYS[port], 0L);
+            double[] loggedPovs = table.getDoubleArray(POVS_KEYS[port]);
+            povCounts[port] = Math.min(loggedPovs.length, MAX_POVS);
+            System.arraycopy(loggedPovs, 0, povs[port], 0, povCounts[port]);
+        }
+    }
+
+    private static boolean changed(double[] values, int count, double[] recorded, int recordedCount) {
+        if (count != recordedCount) {
+            return true;
+        }
+        for (int i = 0; i < count; i++) {
+            if (values[i] != recorded[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,99 @@
+package frc.robot.util.Replay;
+
+import java.util.HashMap;
+
+import frc.robot.util.AsyncDataLogWriter;
+
+/**
+ * Keyed view of one inputs object in the log. Entry ids and full key names are cached per key so
+ * recording every loop doesn't build strings. Keys passed in should be literals or constants.
+ */
+public class InputsTable {
+    private final String prefix;
+    private final HashMap<String, Integer> ids = new HashMap<String, Integer>();
+    private final HashMap<String, String> fullKeys = new HashMap<String, String>();
+
+    InputsTable(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public void put(String key, double value) {
+        Integer id = ids.get(key);
+        if (id == null) {
+            id = AsyncDataLogWriter.startDouble(fullKey(key));
+            ids.put(key, id);
+        }
+        AsyncDataLogWriter.appendDouble(id, value);
+    }
+
+    public void put(String key, boolean value) {
+        Integer id = ids.get(key);
+        if (id == null) {
+            id = AsyncDataLogWriter.startBoolean(fullKey(key));
+            ids.put(key, id);
+        }
+        AsyncDataLogWriter.appendBoolean(id, value);
+    }
+
+    public void put(String key, long value) {
+        Integer id = ids.get(key);
+        if (id == null) {
+            id = AsyncDataLogWriter.startInt64(fullKey(key));
+            ids.put(key, id);
+        }
+        AsyncDataLogWriter.appendInt64(id, value);
+    }
+
+    public void put(String key, double[] value, int length) {
+        Integer id = ids.get(key);
+        if (id == null) {
+            id = AsyncDataLogWriter.startDoubleArray(fullKey(key));
+            ids.put(key, id);
+        }
+        AsyncDataLogWriter.appendDoubleArray(id, value, length);
+    }
+
+    public void put(String key, byte[] value, int length) {
+        Integer id = ids.get(key);
+        if (id == null) {
+            id = AsyncDataLogWriter.startRaw(fullKey(key));
+            ids.put(key, id);
+        }
+        AsyncDataLogWriter.appendRaw(id, value, length);
+    }
+
+    public double get(String key, double defaultValue) {
+        Object value = Replay.getValue(fullKey(key));
+        return value instanceof Double ? (Double) value : defaultValue;
+    }
+
+    public boolean get(String key, boolean defaultValue) {
+        Object value = Replay.getValue(fullKey(key));
+        return value instanceof Boolean ? (Boolean) value : defaultValue;
+    }
+
+    public long get(String key, long defaultValue) {
+        Object value = Replay.getValue(fullKey(key));
+        return value instanceof Long ? (Long) value : defaultValue;
+    }
+
+    // arrays come back as the log's own copy, or an empty array if the key was never recorded
+    public double[] getDoubleArray(String key) {
+        Object value = Replay.getValue(fullKey(key));
+        return value instanceof double[] ? (double[]) value : new double[0];
+    }
+
+    public byte[] getRaw(String key) {
+        Object value = Replay.getValue(fullKey(key));
+        return value instanceof byte[] ? (byte[]) value : new byte[0];
+    }
+
+    private String fullKey(String key) {
+        String fullKey = fullKeys.get(key);
+        if (fullKey == null) {
+            fullKey = prefix + key;
+            fullKeys.put(key, fullKey);
+        }
+        return fullKey;
+    }
+}
@@ -0,0 +1,11 @@
+package frc.robot.util.Replay;
+
+/**
+ * Everything a subsystem reads from hardware in one loop. toLog writes the fields, fromLog fills
+ * them back in during replay, both with the same keys.
+ */
+public interface LoggableInputs {
+    public void toLog(InputsTable table);
+
+    public void fromLog(InputsTable table);
+}
@@ -0,0 +1,87 @@
+package frc.robot.util.Replay;
+
+import java.util.HashMap;
+
+import edu.wpi.first.wpilibj.RobotController;
+import frc.robot.util.AsyncDataLogWriter;
+
+/**
+ * Record/replay switch for subsystem inputs. On the robot every inputs object goes through
+ * processInputs once per loop and gets written to the on-robot log. When ReplayRunner is driving,
+ * processInputs fills the same objects from the log instead, so the subsystem code after it runs
+ * unchanged. Inputs are re-recorded during replay so the replay log can be diffed against the
+ * original.
+ */
+public class Replay {
+    public static final String INPUTS_PREFIX = "Replay/Inputs/";
+    public static final String LOOP_KEY = "Replay/LoopTimestamp";
+    private static final String DRIVER_STATION_KEY = "DriverStation";
+
+    private static boolean replaying = false;
+    private static final HashMap<String, Object> replayValues = new HashMap<String, Object>();
+    private static final HashMap<String, InputsTable> tables = new HashMap<String, InputsTable>();
+    private static final DriverStationInputs driverStationInputs = new DriverStationInputs();
+    private static int loopId = -1;
+
+    public static boolean isReplay() {
+        return replaying;
+    }
+
+    public static void processInputs(String key, LoggableInputs inputs) {
+        InputsTable table = table(key);
+        if (replaying) {
+            inputs.fromLog(table);
+        }
+        inputs.toLog(table);
+    }
+
+    // Fills inputs from the replay values without recording anything, for offline tools built on
+    // ReplayRunner.forEachLoop
+    public static void readInputs(String key, LoggableInputs inputs) {
+        inputs.fromLog(table(key));
+    }
+
+    // Marks the start of a loop, everything recorded until the next marker belongs to this loop
+    public static void beginLoop() {
+        if (loopId < 0) {
+            loopId = AsyncDataLogWriter.startInt64(LOOP_KEY);
+        }
+        AsyncDataLogWriter.appendInt64(loopId, RobotController.getFPGATime());
+    }
+
+    // after DriverStation.refreshData, so this is what the rest of the loop sees
+    public static void recordDriverStation() {
+        if (!replaying) {
+            driverStationInputs.update();
+        }
+        processInputs(DRIVER_STATION_KEY, driverStationInputs);
+    }
+
+    // ReplayRunner side
+
+    static void enable() {
+        replaying = true;
+    }
+
+    static void setValue(String key, Object value) {
+        replayValues.put(key, value);
+    }
+
+    static Object getValue(String key) {
+        return replayValues.get(key);
+    }
+
+    static void applyDriverStation() {
+        driverStationInputs.fromLog(table(DRIVER_STATION_KEY));
+        driverStationInputs.applyToSim();
+    }
+
+    private static InputsTable table(String key) {
+        InputsTable table = tables.get(key);
+        if (table == null) {
+            table = new InputsTable(INPUTS_PREFIX + key + "/");
+            tables.put(key, table);
+        }
+        return table;
+    }
+}
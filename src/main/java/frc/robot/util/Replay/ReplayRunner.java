@@ -0,0 +1,148 @@
+package frc.robot.util.Replay;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.function.LongConsumer;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.util.datalog.DataLogReader;
+import edu.wpi.first.util.datalog.DataLogRecord;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.Robot;
+import frc.robot.util.AsyncDataLogWriter;
+
+/**
+ * Re-runs a recorded match on a desktop JVM. The sim clock is paused and stepped to each recorded
+ * loop timestamp, the recorded driver station state is pushed through DriverStationSim and the
+ * robot loop is called directly, so nothing waits on real time. Outputs land in a new _replay log
+ * next to the normal sim logs.
+ *
+ * Started from Main when REPLAY_LOG is set, run simulateJava with the sim GUI/DS extensions off so
+ * they don't fight over the driver station state.
+ */
+public class ReplayRunner {
+    private final Robot robot;
+    private int loops = 0;
+
+    private ReplayRunner(Robot robot) {
+        this.robot = robot;
+    }
+
+    public static void run(String path) {
+        Replay.enable();
+        if (!HAL.initialize(500, 0)) {
+            throw new IllegalStateException("Failed to initialize HAL");
+        }
+        SimHooks.pauseTiming();
+
+        DataLogReader reader = open(path);
+        if (reader == null) {
+            return;
+        }
+
+        Robot robot = new Robot();
+        robot.robotInit();
+
+        ReplayRunner runner = new ReplayRunner(robot);
+        long start = System.nanoTime();
+        long firstLoop = forEachLoop(reader, runner::runLoop);
+        double wallSeconds = (System.nanoTime() - start) / 1e9;
+        double matchSeconds = (RobotController.getFPGATime() - firstLoop) / 1e6;
+
+        AsyncDataLogWriter.flushAndWait(5.0);
+        System.err.println(String.format(
+            "Replay: %d loops, %.1fs of robot time in %.1fs (%.1fx real time), %d log records dropped",
+            runner.loops, matchSeconds, wallSeconds, matchSeconds / Math.max(wallSeconds, 1e-9), AsyncDataLogWriter.getDropped()
+        ));
+        System.exit(0);
+    }
+
+    public static DataLogReader open(String path) {
+        DataLogReader reader;
+        try {
+            reader = new DataLogReader(path);
+        } catch (IOException e) {
+            System.err.println("Replay: couldn't open " + path + " (" + e.getMessage() + ")");
+            return null;
+        }
+        if (!reader.isValid()) {
+            System.err.println("Replay: " + path + " isn't a wpilog file");
+            return null;
+        }
+        return reader;
+    }
+
+    // Loads each recorded loop's inputs into the replay values, then hands the loop timestamp to
+    // the consumer. Records after a loop marker belong to that loop, so a loop only runs once the
+    // next marker shows up. Returns the first loop's timestamp.
+    public static long forEachLoop(DataLogReader reader, LongConsumer loop) {
+        HashMap<Integer, String[]> entries = new HashMap<Integer, String[]>(); // id -> {name, type}
+        int loopEntry = -1;
+        long pendingLoop = -1;
+        long firstLoop = -1;
+        for (DataLogRecord record : reader) {
+            if (record.isStart()) {
+                DataLogRecord.StartRecordData start = record.getStartData();
+                if (start.name.equals(Replay.LOOP_KEY)) {
+                    loopEntry = start.entry;
+                } else if (start.name.startsWith(Replay.INPUTS_PREFIX)) {
+                    entries.put(start.entry, new String[] {start.name, start.type});
+                }
+                continue;
+            }
+            if (record.isControl()) {
+                continue;
+            }
+
+            if (record.getEntry() == loopEntry) {
+                if (pendingLoop >= 0) {
+                    loop.accept(pendingLoop);
+                }
+                pendingLoop = record.getInteger();
+                if (firstLoop < 0) {
+                    firstLoop = pendingLoop;
+                }
+                continue;
+            }
+
+            String[] entry = entries.get(record.getEntry());
+            if (entry != null) {
+                Replay.setValue(entry[0], decode(record, entry[1]));
+            }
+        }
+        if (pendingLoop >= 0) {
+            loop.accept(pendingLoop);
+        }
+        return firstLoop;
+    }
+
+    private void runLoop(long timestampUs) {
+        long dt = timestampUs - RobotController.getFPGATime();
+        if (dt > 0) {
+            SimHooks.stepTiming(dt / 1e6);
+        }
+        Replay.applyDriverStation();
+        robot.loopFunc();
+        loops++;
+    }
+
+    private static Object decode(DataLogRecord record, String type) {
+        switch (type) {
+            case "double":
+                return record.getDouble();
+            case "boolean":
+                return record.getBoolean();
+            case "int64":
+                return record.getInteger();
+            case "double[]":
+                return record.getDoubleArray();
+            case "raw":
+                return record.getRaw();
+            case "string":
+                return record.getString();
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package frc.robot.util;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Snapshot of where the robot is and how it's moving relative to the speaker, computed once per
+ * loop at the end of SteelTalonsLocalization.periodic(). Everything that runs after localization
+ * (shooter, intake, commands) reads the same values for the tick instead of recomputing them.
+ */
+public class RobotState {
+    private static double timestamp = 0.0;
+    private static boolean isBlue = false;
+
+    private static double poseX = 0.0;
+    private static double poseY = 0.0;
+    private static double headingRad = 0.0;
+
+    // robot relative, straight from the drivetrain's measured speeds
+    private static double vx = 0.0;
+    private static double vy = 0.0;
+    private static double omega = 0.0;
+    private static double fieldVx = 0.0;
+    private static double fieldVy = 0.0;
+    private static double speedMagnitude = 0.0;
+
+    // speaker -> robot
+    private static double speakerDx = 0.0;
+    private static double speakerDy = 0.0;
+    private static double speakerDistance = 0.0;
+    private static double speakerAngleRad = 0.0;
+    private static double angErrorRad = 0.0;
+    private static double parallelSpeed = 0.0;
+    private static double perpSpeed = 0.0;
+
+    public static void update(Pose2d pose, ChassisSpeeds robotSpeeds) {
+        timestamp = Timer.getFPGATimestamp();
+        isBlue = MiscUtil.isBlue();
+
+        poseX = pose.getX();
+        poseY = pose.getY();
+        headingRad = pose.getRotation().getRadians();
+        double cos = pose.getRotation().getCos();
+        double sin = pose.getRotation().getSin();
+
+        vx = robotSpeeds.vxMetersPerSecond;
+        vy = robotSpeeds.vyMetersPerSecond;
+        omega = robotSpeeds.omegaRadiansPerSecond;
+        fieldVx = vx * cos - vy * sin;
+        fieldVy = vx * sin + vy * cos;
+        speedMagnitude = Math.hypot(vx, vy);
+
+        double speakerX = isBlue ? MiscUtil.speaker_Pose.getX() : MiscUtil.fieldWidth - MiscUtil.speaker_Pose.getX();
+        speakerDx = poseX - speakerX;
+        speakerDy = poseY - MiscUtil.speaker_Pose.getY();
+        speakerDistance = Math.hypot(speakerDx, speakerDy);
+
+        double speakerCos = 1.0;
+        double speakerSin = 0.0;
+        if (speakerDistance > 1e-9) {
+            speakerCos = speakerDx / speakerDistance;
+            speakerSin = speakerDy / speakerDistance;
+        }
+        speakerAngleRad = Math.atan2(speakerSin, speakerCos);
+        angErrorRad = MathUtil.angleModulus(speakerAngleRad - headingRad);
+
+        // same decomposition the old MiscUtil.targetingInformation did (robot relative velocity against
+        // the speaker line), just without building the intermediate rotations
+        parallelSpeed = -(speakerSin * vx - speakerCos * vy);
+        perpSpeed = speakerCos * vx + speakerSin * vy;
+    }
+
+    public static double getTimestamp() {
+        return timestamp;
+    }
+
+    public static boolean isBlue() {
+        return isBlue;
+    }
+
+    public static double getPoseX() {
+        return poseX;
+    }
+
+    public static double getPoseY() {
+        return poseY;
+    }
+
+    public static double getHeadingRad() {
+        return headingRad;
+    }
+
+    public static double getVx() {
+        return vx;
+    }
+
+    public static double getVy() {
+        return vy;
+    }
+
+    public static double getOmega() {
+        return omega;
+    }
+
+    public static double getFieldVx() {
+        return fieldVx;
+    }
+
+    public static double getFieldVy() {
+        return fieldVy;
+    }
+
+    public static double getSpeedMagnitude() {
+        return speedMagnitude;
+    }
+
+    public static double getSpeakerDx() {
+        return speakerDx;
+    }
+
+    public static double getSpeakerDy() {
+        return speakerDy;
+    }
+
+    public static double getSpeakerDistance() {
+        return speakerDistance;
+    }
+
+    public static double getSpeakerAngleRad() {
+        return speakerAngleRad;
+    }
+
+    public static double getAngErrorRad() {
+        return angErrorRad;
+    }
+
+    public static double getParallelSpeed() {
+        return parallelSpeed;
+    }
+
+    public static double getPerpSpeed() {
+        return perpSpeed;
+    }
+}
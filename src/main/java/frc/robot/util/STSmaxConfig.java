@@ -3,6 +3,12 @@ package frc.robot.util;
 import com.revrobotics.CANSparkBase.IdleMode;
 
 public class STSmaxConfig {
+    // where SteelTalonsSparkMaxServo closes its position loop
+    public enum ServoControl {
+        kRio, // ProfiledPIDController on the RIO once a loop, voltage out
+        kOnboard // profile still steps on the RIO, the SparkMax runs position PID on each setpoint at 1kHz
+    }
+
     public String name;
     public int id;
     public boolean inverted;
@@ -11,8 +17,16 @@ public class STSmaxConfig {
     public double finalDiameterMeters; //only useful for linear motors
     public int currentLimit;
     public double kP, kD, kI, kFF;
+    public double kS, kG; //volts, static friction and gravity for the servo feedforward
+    public double kV, kA; //volts per unit/s and per unit/s^2 of the mechanism, for model based controllers
+    public double gravityOffsetRad; //rotational servos, angle above horizontal when the encoder reads 0
+    public double notifierPeriodS; //0 runs the controller from the main loop, only the state space flywheel uses this
     public double maxAccel, maxVel;
     public IdleMode idleMode;
+    public CANFramePolicy.Role frameRole; //null uses the wrapper's default role
+    public ServoControl servoControl; //only read by SteelTalonsSparkMaxServo
+    public int velocityMeasurementPeriodMs; //hall sensor velocity window, burned to flash by STSmaxConfigurator
+    public int velocityAverageDepth; //hall sensor velocity samples averaged, 0 leaves the device default
 
     private final double NEO_MAX_RPM = 5676.0;
 
@@ -26,7 +40,13 @@ public class STSmaxConfig {
         currentLimit = 40;
         maxAccel = 0.0;
         maxVel = 0.0;
+        notifierPeriodS = 0.0;
+        gravityOffsetRad = 0.0;
         idleMode = IdleMode.kBrake;
+        frameRole = null;
+        servoControl = ServoControl.kRio;
+        velocityMeasurementPeriodMs = 10;
+        velocityAverageDepth = 0;
     }
 
     public double getStandardMaxVelocity() {
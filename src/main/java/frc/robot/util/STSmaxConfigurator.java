@@ -0,0 +1,76 @@
+package frc.robot.util;
+
+import com.revrobotics.CANSparkMax;
+
+import edu.wpi.first.wpilibj.Preferences;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Only pushes persistent SparkMax parameters (and burns flash) when the device doesn't already
+ * have them. A hash of everything that ends up on the controller is kept in Preferences per CAN id,
+ * and a few parameters are read back from the device so a swapped controller with the same id
+ * still gets configured.
+ */
+public class STSmaxConfigurator {
+    private static final String PREFERENCES_PREFIX = "STSmax/";
+    private static final int CONFIG_VERSION = 1; // bump when the parameters a wrapper sets change
+    private static final double SETTLE_DELAY_S = 0.15;
+
+    /**
+     * @param kind which wrapper is configuring, different wrappers set different parameters
+     * @param positionConv encoder position conversion factor the wrapper expects
+     * @param persistentParams sets every parameter that gets burned to flash, only run when needed
+     * @return true if the device had to be configured and flashed
+     */
+    public static boolean configure(CANSparkMax smax, STSmaxConfig config, int id, String kind, double positionConv, Runnable persistentParams) {
+        double start = Timer.getFPGATimestamp();
+        String key = PREFERENCES_PREFIX + id;
+        long hash = hash(config, id, kind, positionConv);
+        boolean upToDate = Preferences.getLong(key, 0) == hash && matchesDevice(smax, config, positionConv);
+
+        if (!upToDate) {
+            Timer.delay(SETTLE_DELAY_S);
+            smax.getEncoder().setMeasurementPeriod(config.velocityMeasurementPeriodMs);
+            if (config.velocityAverageDepth > 0) {
+                smax.getEncoder().setAverageDepth(config.velocityAverageDepth);
+            }
+            persistentParams.run();
+            smax.burnFlash();
+            Timer.delay(SETTLE_DELAY_S);
+            Preferences.setLong(key, hash);
+        }
+
+        System.err.println(String.format("%s (CAN %d) %s in %.0f ms",
+            config.name, id, upToDate ? "already configured" : "configured and flashed", (Timer.getFPGATimestamp() - start) * 1000.0));
+        return !upToDate;
+    }
+
+    private static boolean matchesDevice(CANSparkMax smax, STSmaxConfig config, double positionConv) {
+        return smax.getInverted() == config.inverted &&
+            smax.getEncoder().getMeasurementPeriod() == config.velocityMeasurementPeriodMs &&
+            (config.velocityAverageDepth <= 0 || smax.getEncoder().getAverageDepth() == config.velocityAverageDepth) &&
+            Math.abs(smax.getEncoder().getPositionConversionFactor() - positionConv) < 1e-6;
+    }
+
+    // maxVel/maxAccel only live in RIO side controllers, so they don't invalidate the device config.
+    // Gains are hashed for every wrapper, retuning a RIO side servo just costs one extra flash, and
+    // onboard servos get their PID slot from them
+    private static long hash(STSmaxConfig config, int id, String kind, double positionConv) {
+        long h = CONFIG_VERSION;
+        h = 31 * h + id;
+        h = 31 * h + kind.hashCode();
+        h = 31 * h + (config.inverted ? 1 : 0);
+        h = 31 * h + config.currentLimit;
+        h = 31 * h + (config.idleMode != null ? config.idleMode.ordinal() : -1);
+        h = 31 * h + (config.isRotational ? 1 : 0);
+        h = 31 * h + Double.doubleToLongBits(positionConv);
+        h = 31 * h + Double.doubleToLongBits(config.kP);
+        h = 31 * h + Double.doubleToLongBits(config.kI);
+        h = 31 * h + Double.doubleToLongBits(config.kD);
+        h = 31 * h + Double.doubleToLongBits(config.kFF);
+        h = 31 * h + (config.servoControl != null ? config.servoControl.ordinal() : -1);
+        h = 31 * h + config.velocityMeasurementPeriodMs;
+        h = 31 * h + config.velocityAverageDepth;
+        return h == 0 ? 1 : h; // 0 is the "never configured" default
+    }
+}
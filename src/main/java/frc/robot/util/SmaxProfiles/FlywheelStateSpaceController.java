@@ -0,0 +1,82 @@
+package frc.robot.util.SmaxProfiles;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.Nat;
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.controller.LinearPlantInversionFeedforward;
+import edu.wpi.first.math.controller.LinearQuadraticRegulator;
+import edu.wpi.first.math.estimator.KalmanFilter;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.system.LinearSystem;
+import edu.wpi.first.math.system.LinearSystemLoop;
+import edu.wpi.first.math.system.plant.LinearSystemId;
+
+/**
+ * Velocity loop for a flywheel with no hardware attached, so the same control law runs on the
+ * SparkMax wrapper and in the benchmark. The plant comes from the mechanism's kV/kA, a Kalman
+ * filter smooths the velocity measurement and LQR plus plant inversion feedforward pick the
+ * voltage. The output is clamped to the bus voltage the caller measured, and never pushes against
+ * the direction of the reference so spin downs coast.
+ */
+public class FlywheelStateSpaceController {
+    // LQR: how much velocity error we tolerate against how much voltage we're willing to use
+    private static final double VELOCITY_ERROR_TOLERANCE_RPM = 40.0;
+    private static final double CONTROL_EFFORT_VOLTS = 12.0;
+    // Kalman: how far the model can be off per step vs how noisy the encoder velocity is
+    private static final double MODEL_STD_DEV_RPM = 30.0;
+    private static final double MEASUREMENT_STD_DEV_RPM = 8.0;
+    // SparkMax velocity is a moving average, delayed by about half its window
+    public static final double MEASUREMENT_DELAY_S = 0.01;
+
+    private final LinearSystemLoop<N1, N1, N1> loop;
+    private final double periodS;
+    private double busVoltage = 12.0;
+    private double reference = 0.0;
+
+    // kV in volts per RPM, kA in volts per RPM/s, periodS is how often calculate is called
+    public FlywheelStateSpaceController(double kV, double kA, double periodS) {
+        this.periodS = periodS;
+        LinearSystem<N1, N1, N1> plant = LinearSystemId.identifyVelocitySystem(kV, kA);
+        LinearQuadraticRegulator<N1, N1, N1> lqr = new LinearQuadraticRegulator<N1, N1, N1>(
+            plant, VecBuilder.fill(VELOCITY_ERROR_TOLERANCE_RPM), VecBuilder.fill(CONTROL_EFFORT_VOLTS), periodS
+        );
+        lqr.latencyCompensate(plant, periodS, MEASUREMENT_DELAY_S);
+        KalmanFilter<N1, N1, N1> observer = new KalmanFilter<N1, N1, N1>(
+            Nat.N1(), Nat.N1(), plant, VecBuilder.fill(MODEL_STD_DEV_RPM), VecBuilder.fill(MEASUREMENT_STD_DEV_RPM), periodS
+        );
+        loop = new LinearSystemLoop<N1, N1, N1>(
+            lqr, new LinearPlantInversionFeedforward<N1, N1, N1>(plant, periodS), observer, u -> VecBuilder.fill(clamp(u.get(0, 0)))
+        );
+    }
+
+    // Volts to apply for the next period
+    public double calculate(double measuredRPM, double referenceRPM, double busVoltage) {
+        this.busVoltage = busVoltage;
+        this.reference = referenceRPM;
+        if (referenceRPM == 0.0) {
+            // coasting, keep the estimate on the measurement so the next spin up starts clean
+            reset(measuredRPM);
+            return 0.0;
+        }
+        loop.setNextR(referenceRPM);
+        loop.correct(VecBuilder.fill(measuredRPM));
+        loop.predict(periodS);
+        return loop.getU(0);
+    }
+
+    public void reset(double velocityRPM) {
+        loop.reset(VecBuilder.fill(velocityRPM));
+    }
+
+    public double getEstimatedVelocity() {
+        return loop.getXHat(0);
+    }
+
+    public double getPeriod() {
+        return periodS;
+    }
+
+    private double clamp(double volts) {
+        return reference >= 0 ? MathUtil.clamp(volts, 0.0, busVoltage) : MathUtil.clamp(volts, -busVoltage, 0.0);
+    }
+}
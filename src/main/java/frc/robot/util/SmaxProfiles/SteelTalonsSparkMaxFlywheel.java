@@ -9,8 +9,8 @@ import com.revrobotics.SparkPIDController;
 
 import edu.wpi.first.math.filter.SlewRateLimiter;
 import edu.wpi.first.math.geometry.Rotation2d;
-import edu.wpi.first.wpilibj.Timer;
-import frc.robot.util.MiscUtil;
+import frc.robot.util.CANFramePolicy;
+import frc.robot.util.STSmaxConfigurator;
 import frc.robot.util.STSmaxConfig;
 import frc.robot.util.SteelTalonsLogger;
 
@@ -24,32 +24,38 @@ public class SteelTalonsSparkMaxFlywheel {
     private SlewRateLimiter accelLimiter;
     private boolean disableLimiter = false;
 
+    // created on the first log() call so motors that never log don't register topics
+    private SteelTalonsLogger.DoubleHandle appliedOutputLog;
+    private SteelTalonsLogger.DoubleHandle outputCurrentLog;
+    private SteelTalonsLogger.DoubleHandle tempLog;
+    private SteelTalonsLogger.BooleanHandle brakedLog;
+    private SteelTalonsLogger.DoubleHandle positionLog;
+    private SteelTalonsLogger.DoubleHandle velocityLog;
+    private SteelTalonsLogger.DoubleHandle setpointLog;
+    private SteelTalonsLogger.DoubleHandle errorLog;
 
     public SteelTalonsSparkMaxFlywheel(STSmaxConfig config) {
         config.isRotational = false;
         this.config = config;
         smax = new CANSparkMax(config.id, MotorType.kBrushless);
-        Timer.delay(0.15);
-        smax.setInverted(config.inverted);
-        smax.setSmartCurrentLimit(config.currentLimit);
-        smax.setIdleMode(config.idleMode);
         smaxEnc = smax.getEncoder();
-        smaxEnc.setMeasurementPeriod(10);
+        smaxPID = smax.getPIDController();
         double positionConv = (config.gearing * config.finalDiameterMeters * Math.PI);
-        //M - M/s
-        smaxEnc.setPositionConversionFactor(positionConv);
-        smaxEnc.setVelocityConversionFactor(positionConv / 60);
+        STSmaxConfigurator.configure(smax, config, config.id, "Flywheel", positionConv, () -> {
+            smax.setInverted(config.inverted);
+            smax.setSmartCurrentLimit(config.currentLimit);
+            smax.setIdleMode(config.idleMode);
+            //M - M/s
+            smaxEnc.setPositionConversionFactor(positionConv);
+            smaxEnc.setVelocityConversionFactor(positionConv / 60);
+            smaxPID.setP(config.kP);
+            smaxPID.setD(config.kD);
+            smaxPID.setFF(config.kFF);
+            smaxPID.setI(config.kI);
+        });
         smaxEnc.setPosition(0);
-        smaxPID = smax.getPIDController();
-        smaxPID.setP(config.kP);
-        smaxPID.setD(config.kD);
-        smaxPID.setFF(config.kFF);
-        smaxPID.setI(config.kI);
-        MiscUtil.doPeriodicFrame(smax);
-        smax.burnFlash();
+        CANFramePolicy.apply(smax, config.frameRole != null ? config.frameRole : CANFramePolicy.Role.kRoller);
         accelLimiter = new SlewRateLimiter(config.maxAccel);
-        Timer.delay(0.15);
-
     }
 
     public void setRaw(double percent) {
@@ -104,14 +110,24 @@ public class SteelTalonsSparkMaxFlywheel {
     }
 
     public void log() {
-        String name = config.name;
-        SteelTalonsLogger.post(name + ": Applied Output (%)", smax.getAppliedOutput());
-        SteelTalonsLogger.post(name + ": Output Current (A)", smax.getOutputCurrent());
-        SteelTalonsLogger.post(name + ": Temp (C)", smax.getMotorTemperature());
-        SteelTalonsLogger.post(name + ": Is Braked? (Bool)", smax.getIdleMode().equals(IdleMode.kBrake));
-        SteelTalonsLogger.post(name + ": Position (Meters)", getPosition());
-        SteelTalonsLogger.post(name + ": Velocity (Meters/s)", getVelocity());
-        SteelTalonsLogger.post(name + ": Setpoint (Meters)", getSetPoint());
-        SteelTalonsLogger.post(name + ": Error (Meters)", getError());
+        if (appliedOutputLog == null) {
+            String name = config.name;
+            appliedOutputLog = SteelTalonsLogger.doubleHandle(name + ": Applied Output (%)");
+            outputCurrentLog = SteelTalonsLogger.doubleHandle(name + ": Output Current (A)");
+            tempLog = SteelTalonsLogger.doubleHandle(name + ": Temp (C)");
+            brakedLog = SteelTalonsLogger.booleanHandle(name + ": Is Braked? (Bool)");
+            positionLog = SteelTalonsLogger.doubleHandle(name + ": Position (Meters)");
+            velocityLog = SteelTalonsLogger.doubleHandle(name + ": Velocity (Meters/s)");
+            setpointLog = SteelTalonsLogger.doubleHandle(name + ": Setpoint (Meters)");
+            errorLog = SteelTalonsLogger.doubleHandle(name + ": Error (Meters)");
+        }
+        appliedOutputLog.set(smax.getAppliedOutput());
+        outputCurrentLog.set(smax.getOutputCurrent());
+        tempLog.set(smax.getMotorTemperature());
+        brakedLog.set(smax.getIdleMode().equals(IdleMode.kBrake));
+        positionLog.set(getPosition());
+        velocityLog.set(getVelocity());
+        setpointLog.set(getSetPoint());
+        errorLog.set(getError());
     }
 }
@@ -1,80 +1,131 @@
 package frc.robot.util.SmaxProfiles;
 
+import com.revrobotics.CANSparkBase.ControlType;
 import com.revrobotics.CANSparkBase.IdleMode;
 import com.revrobotics.CANSparkLowLevel.MotorType;
 import com.revrobotics.CANSparkMax;
 import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkPIDController;
+import com.revrobotics.SparkPIDController.ArbFFUnits;
 
+import edu.wpi.first.math.controller.ArmFeedforward;
+import edu.wpi.first.math.controller.ElevatorFeedforward;
 import edu.wpi.first.math.controller.ProfiledPIDController;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.trajectory.TrapezoidProfile.Constraints;
-import edu.wpi.first.wpilibj.Timer;
-import frc.robot.util.MiscUtil;
+import edu.wpi.first.math.trajectory.TrapezoidProfile.State;
+import frc.robot.util.CANFramePolicy;
+import frc.robot.util.STSmaxConfigurator;
 import frc.robot.util.STSmaxConfig;
 import frc.robot.util.SteelTalonsLogger;
 
+/**
+ * Profiled position servo. The trapezoid profile always steps on the RIO so goal, setpoint and
+ * getError mean the same thing in both modes. With ServoControl.kRio the RIO PID picks a voltage
+ * once a loop, with kOnboard each profile setpoint goes to the SparkMax's own position loop, which
+ * runs at 1kHz with the feedforward passed as arbitrary feedforward.
+ *
+ * The feedforward is the config's kS/kG/kV/kA model evaluated on the profile setpoint, an arm
+ * (kG * cos) for rotational servos and an elevator (constant kG) for linear ones, plus whatever
+ * arbFF the caller adds.
+ */
 public class SteelTalonsSparkMaxServo {
+    // the onboard loop outputs duty cycle and runs every 1ms, the RIO gains are volts and seconds
+    private static final double NOMINAL_VOLTAGE = 12.0;
+    private static final double ONBOARD_PERIOD_S = 0.001;
+    private static final int ONBOARD_SLOT = 0;
 
     private CANSparkMax smax;
     private RelativeEncoder smaxEnc;
+    private SparkPIDController onboardController;
     private ProfiledPIDController smaxController;
+    private ArmFeedforward armFeedforward;
+    private ElevatorFeedforward elevatorFeedforward;
     private STSmaxConfig config;
+    private CANFramePolicy.Role frameRole;
+    private boolean onboard;
     private double setPoint = 0;
+    private double lastSetpointVelocity = 0; // profile acceleration is differenced from this
+    private double feedforward = 0;
+
+    // created on the first log() call so motors that never log don't register topics
+    private SteelTalonsLogger.DoubleHandle appliedOutputLog;
+    private SteelTalonsLogger.DoubleHandle outputCurrentLog;
+    private SteelTalonsLogger.DoubleHandle tempLog;
+    private SteelTalonsLogger.BooleanHandle brakedLog;
+    private SteelTalonsLogger.DoubleHandle positionLog;
+    private SteelTalonsLogger.DoubleHandle velocityLog;
+    private SteelTalonsLogger.DoubleHandle goalLog;
+    private SteelTalonsLogger.DoubleHandle setpointLog;
+    private SteelTalonsLogger.DoubleHandle errorLog;
+    private SteelTalonsLogger.DoubleHandle feedforwardLog;
 
     public SteelTalonsSparkMaxServo(STSmaxConfig config) {
-        this.config = config;
-        smax = new CANSparkMax(config.id, MotorType.kBrushless);
-        Timer.delay(0.15);
-        smax.setInverted(config.inverted);
-        smax.setSmartCurrentLimit(config.currentLimit);
-        smax.setIdleMode(config.idleMode);
-        smaxEnc = smax.getEncoder();
-        smaxEnc.setMeasurementPeriod(10);
-        double positionConv = config.isRotational ? (2 * Math.PI * config.gearing) : (config.gearing * config.finalDiameterMeters * Math.PI);
-        //Rotational subsystem: Rad - Rad/s --- Linear subsystem: M - M/s
-        smaxEnc.setPositionConversionFactor(positionConv);
-        smaxEnc.setVelocityConversionFactor(positionConv / 60.0);
-        smaxEnc.setPosition(0);
-        smaxController = new ProfiledPIDController(config.kP, config.kI, config.kD, 
-            new Constraints(config.maxVel, config.maxAccel)
-        );
-        if (config.isRotational) {
-            smaxController.enableContinuousInput(-Math.PI, Math.PI);
-        }
-        MiscUtil.doPeriodicFrame(smax);
-        smax.burnFlash();
-        Timer.delay(0.15);
+        this(config, config.id, config.frameRole != null ? config.frameRole : CANFramePolicy.Role.kPivot);
     }
 
+    // only used for the pivot slave, which shares the master's config
     public SteelTalonsSparkMaxServo(STSmaxConfig config, int id) {
+        this(config, id, CANFramePolicy.Role.kFollower);
+    }
+
+    private SteelTalonsSparkMaxServo(STSmaxConfig config, int id, CANFramePolicy.Role frameRole) {
         this.config = config;
+        onboard = config.servoControl == STSmaxConfig.ServoControl.kOnboard;
         smax = new CANSparkMax(id, MotorType.kBrushless);
-        Timer.delay(0.15);
-        smax.setInverted(config.inverted);
-        smax.setSmartCurrentLimit(config.currentLimit);
-        smax.setIdleMode(config.idleMode);
         smaxEnc = smax.getEncoder();
-        smaxEnc.setMeasurementPeriod(10);
+        onboardController = smax.getPIDController();
         double positionConv = config.isRotational ? (2 * Math.PI * config.gearing) : (config.gearing * config.finalDiameterMeters * Math.PI);
-        //Rotational subsystem: Rad - Rad/s --- Linear subsystem: M - M/s
-        smaxEnc.setPositionConversionFactor(positionConv);
-        smaxEnc.setVelocityConversionFactor(positionConv / 60.0);
+        STSmaxConfigurator.configure(smax, config, id, "Servo", positionConv, () -> {
+            smax.setInverted(config.inverted);
+            smax.setSmartCurrentLimit(config.currentLimit);
+            smax.setIdleMode(config.idleMode);
+            //Rotational subsystem: Rad - Rad/s --- Linear subsystem: M - M/s
+            smaxEnc.setPositionConversionFactor(positionConv);
+            smaxEnc.setVelocityConversionFactor(positionConv / 60.0);
+            if (onboard) {
+                onboardController.setFeedbackDevice(smaxEnc);
+                onboardController.setP(config.kP / NOMINAL_VOLTAGE, ONBOARD_SLOT);
+                onboardController.setI(config.kI * ONBOARD_PERIOD_S / NOMINAL_VOLTAGE, ONBOARD_SLOT);
+                onboardController.setD(config.kD / ONBOARD_PERIOD_S / NOMINAL_VOLTAGE, ONBOARD_SLOT);
+                onboardController.setFF(0.0, ONBOARD_SLOT);
+                onboardController.setOutputRange(-1.0, 1.0, ONBOARD_SLOT);
+            }
+        });
         smaxEnc.setPosition(0);
         smaxController = new ProfiledPIDController(config.kP, config.kI, config.kD, 
             new Constraints(config.maxVel, config.maxAccel)
         );
         if (config.isRotational) {
             smaxController.enableContinuousInput(-Math.PI, Math.PI);
+            armFeedforward = new ArmFeedforward(config.kS, config.kG, config.kV, config.kA);
+        } else {
+            elevatorFeedforward = new ElevatorFeedforward(config.kS, config.kG, config.kV, config.kA);
         }
-        smax.burnFlash();
-        Timer.delay(0.15);
+        this.frameRole = frameRole;
+        CANFramePolicy.apply(smax, frameRole);
     }
 
     public void setRaw(double percent) {
-        smaxController.reset(getPosition());
+        resetController();
         smax.setVoltage(percent * 12);
     }
 
+    // open loop, used for characterization
+    public void setVoltage(double volts) {
+        resetController();
+        smax.setVoltage(volts);
+    }
+
+    public void setCharacterizing(boolean characterizing) {
+        CANFramePolicy.setCharacterizing(smax, frameRole, characterizing);
+    }
+
+    // what the motor actually put out, status 0 and 1
+    public double getAppliedVoltage() {
+        return smax.getAppliedOutput() * smax.getBusVoltage();
+    }
+
     // public void setAccel(double accel) {
     //     smaxController.setConstraints(new Constraints(config.maxVel, accel));
     // }
@@ -85,7 +136,23 @@ public class SteelTalonsSparkMaxServo {
 
     public void setSetpoint(double setPoint, double arbFF) {
         this.setPoint = setPoint;
-        smax.setVoltage(smaxController.calculate(getPosition(), setPoint) + arbFF + config.kFF * setPoint);
+        // steps the profile in both modes, the RIO PID output is only applied in kRio
+        double feedback = smaxController.calculate(getPosition(), setPoint);
+        State profileSetpoint = smaxController.getSetpoint();
+        double profileAccel = (profileSetpoint.velocity - lastSetpointVelocity) / smaxController.getPeriod();
+        lastSetpointVelocity = profileSetpoint.velocity;
+        if (config.isRotational) {
+            feedforward = armFeedforward.calculate(profileSetpoint.position + config.gravityOffsetRad, profileSetpoint.velocity, profileAccel);
+        } else {
+            feedforward = elevatorFeedforward.calculate(profileSetpoint.velocity, profileAccel);
+        }
+        feedforward += arbFF;
+        if (onboard) {
+            // the profile setpoint is kept next to the measurement, so it's already unwrapped for the SparkMax
+            onboardController.setReference(profileSetpoint.position, ControlType.kPosition, ONBOARD_SLOT, feedforward, ArbFFUnits.kVoltage);
+        } else {
+            smax.setVoltage(feedback + feedforward);
+        }
     }
 
     public double getSetPoint() {
@@ -93,7 +160,7 @@ public class SteelTalonsSparkMaxServo {
     }
 
     public void forceStop() {
-        smaxController.reset(getPosition());
+        resetController();
         smax.setVoltage(0);
     }
 
@@ -127,18 +194,32 @@ public class SteelTalonsSparkMaxServo {
 
     public void resetController() {
         smaxController.reset(getPosition());
+        lastSetpointVelocity = 0;
     }
 
     public void log() {
-        String name = config.name;
-        SteelTalonsLogger.post(name + ": Applied Output (%)", smax.getAppliedOutput());
-        SteelTalonsLogger.post(name + ": Output Current (A)", smax.getOutputCurrent());
-        SteelTalonsLogger.post(name + ": Temp (C)", smax.getMotorTemperature());
-        SteelTalonsLogger.post(name + ": Is Braked? (Bool)", smax.getIdleMode().equals(IdleMode.kBrake));
-        SteelTalonsLogger.post(name + ": Position (rad or Meters)", getPosition());
-        SteelTalonsLogger.post(name + ": Velocity (rads or Meters_s)", getVelocity());
-        SteelTalonsLogger.post(name + ": Goal (rad or Meters)", smaxController.getGoal().position);
-        SteelTalonsLogger.post(name + ": Setpoint (rad or Meters)", smaxController.getSetpoint().position);
-        SteelTalonsLogger.post(name + ": Error (rad or Meters)", getError());
+        if (appliedOutputLog == null) {
+            String name = config.name;
+            appliedOutputLog = SteelTalonsLogger.doubleHandle(name + ": Applied Output (%)");
+            outputCurrentLog = SteelTalonsLogger.doubleHandle(name + ": Output Current (A)");
+            tempLog = SteelTalonsLogger.doubleHandle(name + ": Temp (C)");
+            brakedLog = SteelTalonsLogger.booleanHandle(name + ": Is Braked? (Bool)");
+            positionLog = SteelTalonsLogger.doubleHandle(name + ": Position (rad or Meters)");
+            velocityLog = SteelTalonsLogger.doubleHandle(name + ": Velocity (rads or Meters_s)");
+            goalLog = SteelTalonsLogger.doubleHandle(name + ": Goal (rad or Meters)");
+            setpointLog = SteelTalonsLogger.doubleHandle(name + ": Setpoint (rad or Meters)");
+            errorLog = SteelTalonsLogger.doubleHandle(name + ": Error (rad or Meters)");
+            feedforwardLog = SteelTalonsLogger.doubleHandle(name + ": Feedforward (V)");
+        }
+        appliedOutputLog.set(smax.getAppliedOutput());
+        outputCurrentLog.set(smax.getOutputCurrent());
+        tempLog.set(smax.getMotorTemperature());
+        brakedLog.set(smax.getIdleMode().equals(IdleMode.kBrake));
+        positionLog.set(getPosition());
+        velocityLog.set(getVelocity());
+        goalLog.set(smaxController.getGoal().position);
+        setpointLog.set(smaxController.getSetpoint().position);
+        errorLog.set(getError());
+        feedforwardLog.set(feedforward);
     }
 }
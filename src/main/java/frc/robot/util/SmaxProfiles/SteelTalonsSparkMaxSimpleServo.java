@@ -9,8 +9,8 @@ import com.revrobotics.SparkPIDController;
 import com.revrobotics.SparkPIDController.ArbFFUnits;
 
 import edu.wpi.first.math.geometry.Rotation2d;
-import edu.wpi.first.wpilibj.Timer;
-import frc.robot.util.MiscUtil;
+import frc.robot.util.CANFramePolicy;
+import frc.robot.util.STSmaxConfigurator;
 import frc.robot.util.STSmaxConfig;
 import frc.robot.util.SteelTalonsLogger;
 
@@ -20,41 +20,65 @@ public class SteelTalonsSparkMaxSimpleServo {
     private RelativeEncoder smaxEnc;
     private SparkPIDController smaxController;
     private STSmaxConfig config;
+    private CANFramePolicy.Role frameRole;
     private double setPoint = 0;
 
+    // created on the first log() call so motors that never log don't register topics
+    private SteelTalonsLogger.DoubleHandle appliedOutputLog;
+    private SteelTalonsLogger.DoubleHandle outputCurrentLog;
+    private SteelTalonsLogger.DoubleHandle tempLog;
+    private SteelTalonsLogger.BooleanHandle brakedLog;
+    private SteelTalonsLogger.DoubleHandle positionLog;
+    private SteelTalonsLogger.DoubleHandle velocityLog;
+    private SteelTalonsLogger.DoubleHandle setpointLog;
+    private SteelTalonsLogger.DoubleHandle errorLog;
+
     public SteelTalonsSparkMaxSimpleServo(STSmaxConfig config) {
         this.config = config;
         smax = new CANSparkMax(config.id, MotorType.kBrushless);
-        Timer.delay(0.15);
-        smax.setInverted(config.inverted);
-        smax.setSmartCurrentLimit(config.currentLimit);
-        smax.setIdleMode(config.idleMode);
         smaxEnc = smax.getEncoder();
-        smaxEnc.setMeasurementPeriod(10);
+        smaxController = smax.getPIDController();
         double positionConv = config.isRotational ? (2 * Math.PI * config.gearing) : (config.gearing * config.finalDiameterMeters * Math.PI);
-        //Rotational subsystem: Rad - Rad/s --- Linear subsystem: M - M/s
-        smaxEnc.setPositionConversionFactor(positionConv);
-        smaxEnc.setVelocityConversionFactor(positionConv / 60.0);
+        STSmaxConfigurator.configure(smax, config, config.id, "SimpleServo", positionConv, () -> {
+            smax.setInverted(config.inverted);
+            smax.setSmartCurrentLimit(config.currentLimit);
+            smax.setIdleMode(config.idleMode);
+            //Rotational subsystem: Rad - Rad/s --- Linear subsystem: M - M/s
+            smaxEnc.setPositionConversionFactor(positionConv);
+            smaxEnc.setVelocityConversionFactor(positionConv / 60.0);
+            smaxController.setP(config.kP);
+            smaxController.setI(config.kI);
+            smaxController.setD(config.kD);
+            smaxController.setFF(config.kFF);
+            if (config.isRotational) {
+                smaxController.setPositionPIDWrappingEnabled(true);
+                smaxController.setPositionPIDWrappingMaxInput(Math.PI);
+                smaxController.setPositionPIDWrappingMinInput(-Math.PI);
+            }
+        });
         smaxEnc.setPosition(0);
-        smaxController = smax.getPIDController();
-        smaxController.setP(config.kP);
-        smaxController.setI(config.kI);
-        smaxController.setD(config.kD);
-        smaxController.setFF(config.kFF);
-        if (config.isRotational) {
-            smaxController.setPositionPIDWrappingEnabled(true);
-            smaxController.setPositionPIDWrappingMaxInput(Math.PI);
-            smaxController.setPositionPIDWrappingMinInput(-Math.PI);
-        }
-        MiscUtil.doPeriodicFrame(smax);
-        smax.burnFlash();
-        Timer.delay(0.15);
+        frameRole = config.frameRole != null ? config.frameRole : CANFramePolicy.Role.kSteerServo;
+        CANFramePolicy.apply(smax, frameRole);
     }
 
     public void setRaw(double percent) {
         smax.set(percent);
     }
 
+    // open loop, used for characterization
+    public void setVoltage(double volts) {
+        smax.setVoltage(volts);
+    }
+
+    public void setCharacterizing(boolean characterizing) {
+        CANFramePolicy.setCharacterizing(smax, frameRole, characterizing);
+    }
+
+    // what the motor actually put out, status 0 and 1
+    public double getAppliedVoltage() {
+        return smax.getAppliedOutput() * smax.getBusVoltage();
+    }
+
     public CANSparkMax getSmax() {
         return smax;
     }
@@ -101,14 +125,24 @@ public class SteelTalonsSparkMaxSimpleServo {
     }
 
     public void log() {
-        String name = config.name;
-        SteelTalonsLogger.post(name + ": Applied Output (%)", smax.getAppliedOutput());
-        SteelTalonsLogger.post(name + ": Output Current (A)", smax.getOutputCurrent());
-        SteelTalonsLogger.post(name + ": Temp (C)", smax.getMotorTemperature());
-        SteelTalonsLogger.post(name + ": Is Braked? (Bool)", smax.getIdleMode().equals(IdleMode.kBrake));
-        SteelTalonsLogger.post(name + ": Position (rad or Meters)", getPosition());
-        SteelTalonsLogger.post(name + ": Velocity (rad/s or Meters/s)", getVelocity());
-        SteelTalonsLogger.post(name + ": Setpoint (rad or Meters)", getSetPoint());
-        SteelTalonsLogger.post(name + ": Error (rad or Meters)", getError());
+        if (appliedOutputLog == null) {
+            String name = config.name;
+            appliedOutputLog = SteelTalonsLogger.doubleHandle(name + ": Applied Output (%)");
+            outputCurrentLog = SteelTalonsLogger.doubleHandle(name + ": Output Current (A)");
+            tempLog = SteelTalonsLogger.doubleHandle(name + ": Temp (C)");
+            brakedLog = SteelTalonsLogger.booleanHandle(name + ": Is Braked? (Bool)");
+            positionLog = SteelTalonsLogger.doubleHandle(name + ": Position (rad or Meters)");
+            velocityLog = SteelTalonsLogger.doubleHandle(name + ": Velocity (rad/s or Meters/s)");
+            setpointLog = SteelTalonsLogger.doubleHandle(name + ": Setpoint (rad or Meters)");
+            errorLog = SteelTalonsLogger.doubleHandle(name + ": Error (rad or Meters)");
+        }
+        appliedOutputLog.set(smax.getAppliedOutput());
+        outputCurrentLog.set(smax.getOutputCurrent());
+        tempLog.set(smax.getMotorTemperature());
+        brakedLog.set(smax.getIdleMode().equals(IdleMode.kBrake));
+        positionLog.set(getPosition());
+        velocityLog.set(getVelocity());
+        setpointLog.set(getSetPoint());
+        errorLog.set(getError());
     }
 }
@@ -0,0 +1,187 @@
+package frc.robot.util.SmaxProfiles;
+
+import com.revrobotics.CANSparkBase.IdleMode;
+import com.revrobotics.CANSparkLowLevel.MotorType;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.RelativeEncoder;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.TimedRobot;
+import frc.robot.util.CANFramePolicy;
+import frc.robot.util.STSmaxConfigurator;
+import frc.robot.util.STSmaxConfig;
+import frc.robot.util.SteelTalonsLogger;
+
+/**
+ * Flywheel run by FlywheelStateSpaceController from config.kV/kA, in RPM. With
+ * config.notifierPeriodS set the loop runs on its own Notifier at that period and setSetpoint only
+ * hands it the new reference, otherwise it steps once per setSetpoint call.
+ */
+public class SteelTalonsSparkMaxStateSpaceFlywheel {
+    // shorter window than the SparkMax default (32ms, 8 deep) so the measurement lags less
+    private static final int VELOCITY_MEASUREMENT_PERIOD_MS = 16;
+    private static final int VELOCITY_AVERAGE_DEPTH = 2;
+
+    private CANSparkMax smax;
+    private RelativeEncoder smaxEnc;
+    private FlywheelStateSpaceController controller;
+    private STSmaxConfig config;
+    private CANFramePolicy.Role frameRole;
+    private Notifier notifier;
+    private volatile double setPoint = 0;
+    private volatile double arbFF = 0;
+    private boolean closedLoop = false;
+
+    // created on the first log() call so motors that never log don't register topics
+    private SteelTalonsLogger.DoubleHandle appliedOutputLog;
+    private SteelTalonsLogger.DoubleHandle outputCurrentLog;
+    private SteelTalonsLogger.DoubleHandle tempLog;
+    private SteelTalonsLogger.BooleanHandle brakedLog;
+    private SteelTalonsLogger.DoubleHandle positionLog;
+    private SteelTalonsLogger.DoubleHandle velocityLog;
+    private SteelTalonsLogger.DoubleHandle estimatedVelocityLog;
+    private SteelTalonsLogger.DoubleHandle setpointLog;
+    private SteelTalonsLogger.DoubleHandle errorLog;
+
+    public SteelTalonsSparkMaxStateSpaceFlywheel(STSmaxConfig config) {
+        config.isRotational = false;
+        // the configurator writes and checks these, so the flash check compares against them
+        config.velocityMeasurementPeriodMs = VELOCITY_MEASUREMENT_PERIOD_MS;
+        config.velocityAverageDepth = VELOCITY_AVERAGE_DEPTH;
+        this.config = config;
+        smax = new CANSparkMax(config.id, MotorType.kBrushless);
+        smaxEnc = smax.getEncoder();
+        STSmaxConfigurator.configure(smax, config, config.id, "StateSpaceFlywheel", 1.0, () -> {
+            smax.setInverted(config.inverted);
+            smax.setSmartCurrentLimit(config.currentLimit);
+            smax.setIdleMode(IdleMode.kCoast);
+            //RPM
+            smaxEnc.setPositionConversionFactor(1.0);
+            smaxEnc.setVelocityConversionFactor(1.0);
+        });
+        smaxEnc.setPosition(0);
+        frameRole = config.frameRole != null ? config.frameRole : CANFramePolicy.Role.kFlywheel;
+        CANFramePolicy.apply(smax, frameRole);
+
+        double periodS = config.notifierPeriodS > 0 ? config.notifierPeriodS : TimedRobot.kDefaultPeriod;
+        controller = new FlywheelStateSpaceController(config.kV, config.kA, periodS);
+        if (config.notifierPeriodS > 0) {
+            notifier = new Notifier(this::step);
+            notifier.setName(config.name);
+            notifier.startPeriodic(periodS);
+        }
+    }
+
+    public void setRaw(double percent) {
+        synchronized (this) {
+            closedLoop = false;
+        }
+        smax.setVoltage(percent * smax.getBusVoltage());
+    }
+
+    // open loop, used for characterization
+    public void setVoltage(double volts) {
+        synchronized (this) {
+            closedLoop = false;
+        }
+        smax.setVoltage(volts);
+    }
+
+    // kFlywheel turns status 2 off, SysId needs position too
+    public void setCharacterizing(boolean characterizing) {
+        CANFramePolicy.setCharacterizing(smax, frameRole, characterizing);
+    }
+
+    // what the motor actually put out, status 0 and 1
+    public double getAppliedVoltage() {
+        return smax.getAppliedOutput() * smax.getBusVoltage();
+    }
+
+    public CANSparkMax getSmax() {
+        return smax;
+    }
+
+    public void setSetpoint(double setPoint, double arbFF) {
+        synchronized (this) {
+            if (!closedLoop) {
+                controller.reset(getVelocity());
+                closedLoop = true;
+            }
+            this.setPoint = setPoint;
+            this.arbFF = arbFF;
+        }
+        if (notifier == null) {
+            step();
+        }
+    }
+
+    // main loop or notifier thread
+    private synchronized void step() {
+        if (!closedLoop) {
+            return;
+        }
+        double velocity = getVelocity();
+        if (DriverStation.isDisabled()) {
+            // outputs are off, don't let the estimate wander on voltage that was never applied
+            controller.reset(velocity);
+            return;
+        }
+        smax.setVoltage(controller.calculate(velocity, setPoint, smax.getBusVoltage()) + arbFF);
+    }
+
+    public double getSetPoint() {
+        return setPoint;
+    }
+
+    public void forceStop() {
+        synchronized (this) {
+            closedLoop = false;
+        }
+        smax.setVoltage(0);
+    }
+
+    public double getPosition() {
+        return smaxEnc.getPosition();
+    }
+
+    public void setPosition(double pos) {
+        smaxEnc.setPosition(pos);
+    }
+
+    public double getVelocity() {
+        return smaxEnc.getVelocity();
+    }
+
+    public synchronized double getEstimatedVelocity() {
+        return controller.getEstimatedVelocity();
+    }
+
+    public double getError() {
+        return Math.abs(setPoint - getVelocity());
+    }
+
+    public void log() {
+        if (appliedOutputLog == null) {
+            String name = config.name;
+            appliedOutputLog = SteelTalonsLogger.doubleHandle(name + ": Applied Output (%)");
+            outputCurrentLog = SteelTalonsLogger.doubleHandle(name + ": Output Current (A)");
+            tempLog = SteelTalonsLogger.doubleHandle(name + ": Temp (C)");
+            brakedLog = SteelTalonsLogger.booleanHandle(name + ": Is Braked? (Bool)");
+            positionLog = SteelTalonsLogger.doubleHandle(name + ": Position (Rotations)");
+            velocityLog = SteelTalonsLogger.doubleHandle(name + ": Velocity (RPM)");
+            estimatedVelocityLog = SteelTalonsLogger.doubleHandle(name + ": Estimated Velocity (RPM)");
+            setpointLog = SteelTalonsLogger.doubleHandle(name + ": Setpoint (RPM)");
+            errorLog = SteelTalonsLogger.doubleHandle(name + ": Error (RPM)");
+        }
+        appliedOutputLog.set(smax.getAppliedOutput());
+        outputCurrentLog.set(smax.getOutputCurrent());
+        tempLog.set(smax.getMotorTemperature());
+        brakedLog.set(smax.getIdleMode().equals(IdleMode.kBrake));
+        positionLog.set(getPosition());
+        velocityLog.set(getVelocity());
+        estimatedVelocityLog.set(getEstimatedVelocity());
+        setpointLog.set(getSetPoint());
+        errorLog.set(getError());
+    }
+}
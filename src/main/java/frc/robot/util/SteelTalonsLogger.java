@@ -2,20 +2,160 @@ package frc.robot.util;
 
 import java.util.HashMap;
 
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
 import edu.wpi.first.networktables.GenericEntry;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StringPublisher;
 import edu.wpi.first.util.sendable.Sendable;
 import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
 import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
 
+/**
+ * Handles are registered once per key and then set every loop with primitives. Each one publishes
+ * to the same NT topic the 5427_Logger Shuffleboard tab uses and queues a record for the
+ * AsyncDataLogWriter, both only when the value actually changed. set() must be called from the
+ * main robot thread. post() is kept for old call sites and one-off values.
+ */
 public class SteelTalonsLogger {
+    private static final String TAB_NAME = "5427_Logger";
+    private static final String LOG_PREFIX = TAB_NAME + "/";
+
     private static ShuffleboardTab mainTab;
     private static HashMap<String, GenericEntry> widgetList;
+    private static final NetworkTable table = NetworkTableInstance.getDefault().getTable("Shuffleboard").getSubTable(TAB_NAME);
+    private static final HashMap<String, Object> handles = new HashMap<String, Object>();
+
     public SteelTalonsLogger() {
-        mainTab = Shuffleboard.getTab("5427_Logger");
+        mainTab = Shuffleboard.getTab(TAB_NAME);
         widgetList = new HashMap<String, GenericEntry>();
     }
 
+    public static class DoubleHandle {
+        private final DoublePublisher publisher;
+        private final int logId;
+        private boolean hasValue = false;
+        private double lastValue;
+
+        private DoubleHandle(String key, boolean publish) {
+            publisher = publish ? table.getDoubleTopic(key).publish() : null;
+            logId = AsyncDataLogWriter.startDouble(LOG_PREFIX + key);
+        }
+
+        public void set(double value) {
+            // compare bits so NaN -> NaN isn't treated as a change every loop
+            if (hasValue && Double.doubleToLongBits(value) == Double.doubleToLongBits(lastValue)) {
+                return;
+            }
+            hasValue = true;
+            lastValue = value;
+            if (publisher != null) {
+                publisher.set(value);
+            }
+            AsyncDataLogWriter.appendDouble(logId, value);
+        }
+    }
+
+    public static class BooleanHandle {
+        private final BooleanPublisher publisher;
+        private final int logId;
+        private boolean hasValue = false;
+        private boolean lastValue;
+
+        private BooleanHandle(String key, boolean publish) {
+            publisher = publish ? table.getBooleanTopic(key).publish() : null;
+            logId = AsyncDataLogWriter.startBoolean(LOG_PREFIX + key);
+        }
+
+        public void set(boolean value) {
+            if (hasValue && value == lastValue) {
+                return;
+            }
+            hasValue = true;
+            lastValue = value;
+            if (publisher != null) {
+                publisher.set(value);
+            }
+            AsyncDataLogWriter.appendBoolean(logId, value);
+        }
+    }
+
+    public static class StringHandle {
+        private final StringPublisher publisher;
+        private final int logId;
+        private String lastValue = null;
+
+        private StringHandle(String key, boolean publish) {
+            publisher = publish ? table.getStringTopic(key).publish() : null;
+            logId = AsyncDataLogWriter.startString(LOG_PREFIX + key);
+        }
+
+        public void set(String value) {
+            if (value == null || value.equals(lastValue)) {
+                return;
+            }
+            lastValue = value;
+            if (publisher != null) {
+                publisher.set(value);
+            }
+            AsyncDataLogWriter.appendString(logId, value);
+        }
+    }
+
+    public static DoubleHandle doubleHandle(String key) {
+        return doubleHandle(key, true);
+    }
+
+    // publish = false only writes to the on-robot log, for high rate values nobody watches live
+    public static synchronized DoubleHandle doubleHandle(String key, boolean publish) {
+        Object handle = handles.get(key);
+        if (handle == null) {
+            handle = new DoubleHandle(key, publish);
+            handles.put(key, handle);
+        }
+        return (DoubleHandle) handle;
+    }
+
+    public static BooleanHandle booleanHandle(String key) {
+        return booleanHandle(key, true);
+    }
+
+    public static synchronized BooleanHandle booleanHandle(String key, boolean publish) {
+        Object handle = handles.get(key);
+        if (handle == null) {
+            handle = new BooleanHandle(key, publish);
+            handles.put(key, handle);
+        }
+        return (BooleanHandle) handle;
+    }
+
+    public static StringHandle stringHandle(String key) {
+        return stringHandle(key, true);
+    }
+
+    public static synchronized StringHandle stringHandle(String key, boolean publish) {
+        Object handle = handles.get(key);
+        if (handle == null) {
+            handle = new StringHandle(key, publish);
+            handles.put(key, handle);
+        }
+        return (StringHandle) handle;
+    }
+
+    // Compatibility shim, boxes and looks the key up every call so keep it out of per-loop code
     public static boolean post(String key, Object obj) {
+        if (obj instanceof Number) {
+            doubleHandle(key).set(((Number) obj).doubleValue());
+            return true;
+        } else if (obj instanceof Boolean) {
+            booleanHandle(key).set((Boolean) obj);
+            return true;
+        } else if (obj instanceof String) {
+            stringHandle(key).set((String) obj);
+            return true;
+        }
+
         if (!widgetList.containsKey(key)) {
             widgetList.put(key, mainTab.add(key, obj).getEntry());
             return widgetList.get(key).setValue(obj);
@@ -31,4 +171,4 @@ public class SteelTalonsLogger {
             return;
         }
     }
-}
\ No newline at end of file
+}
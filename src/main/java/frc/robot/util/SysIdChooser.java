@@ -0,0 +1,188 @@
+package frc.robot.util;
+
+import static edu.wpi.first.units.Units.Second;
+import static edu.wpi.first.units.Units.Seconds;
+import static edu.wpi.first.units.Units.Volts;
+
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
+import edu.wpi.first.wpilibj2.command.Subsystem;
+import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine;
+import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine.Direction;
+import frc.robot.subsystems.Intake.Intake;
+import frc.robot.subsystems.Intake.IntakeConstants;
+import frc.robot.subsystems.Shooter.Shooter;
+import frc.robot.subsystems.Shooter.ShooterConstants;
+import frc.robot.subsystems.Swerve.DriveModeBenchmark;
+import frc.robot.subsystems.Swerve.SwerveDrivetrain;
+import frc.robot.util.SmaxProfiles.SteelTalonsSparkMaxServo;
+import frc.robot.util.SmaxProfiles.SteelTalonsSparkMaxStateSpaceFlywheel;
+
+/**
+ * SysId quasistatic and dynamic tests for every mechanism, picked on the dashboard and run when
+ * the robot enters test mode. Samples go straight to the AsyncDataLogWriter under
+ * SysId/(mechanism)/ every loop, unfiltered, next to the test state the analyzer splits the log
+ * on. While a test runs, the status frames the samples come from are sped up. The logged voltage
+ * is what the motor actually applied. Pivots stop at the ends of their travel instead of running
+ * into the hardstops.
+ */
+public class SysIdChooser {
+    // how far past the hardstop reading a pivot can go before it counts as out of travel, encoder slop
+    private static final double HARDSTOP_MARGIN_RAD = Units.degreesToRadians(2.0);
+
+    private static class Test {
+        String name;
+        Subsystem subsystem;
+        DoubleConsumer voltage;
+        DoubleSupplier appliedVoltage; // what the motor put out, not what was asked for
+        DoubleSupplier position;
+        DoubleSupplier velocity;
+        String units; // position units, velocity is these per second
+        double rampVoltsPerSec = 1.0;
+        double stepVolts = 7.0;
+        double quasistaticTimeoutS = 10.0;
+        double dynamicTimeoutS = 3.0;
+        double minPosition = Double.NEGATIVE_INFINITY;
+        double maxPosition = Double.POSITIVE_INFINITY;
+        Consumer<Boolean> characterizing = characterizing -> {};
+    }
+
+    private final SendableChooser<Command> chooser = new SendableChooser<Command>();
+
+    public SysIdChooser(SwerveDrivetrain drivetrain, Shooter shooter, Intake intake) {
+        chooser.setDefaultOption("None", Commands.none());
+
+        // drive tests cover ground, keep them short
+        Test drive = new Test();
+        drive.name = "Drive";
+        drive.subsystem = drivetrain;
+        drive.voltage = drivetrain::setSysIdDriveVoltage;
+        drive.appliedVoltage = drivetrain::getSysIdDriveAppliedVolts;
+        drive.position = drivetrain::getSysIdDrivePosition;
+        drive.velocity = drivetrain::getSysIdDriveVelocity;
+        drive.units = "Meters";
+        drive.stepVolts = 4.0;
+        drive.quasistaticTimeoutS = 4.0;
+        drive.dynamicTimeoutS = 1.5;
+        drive.characterizing = drivetrain::setSysIdCharacterizing;
+        add(drive);
+
+        Test steer = new Test();
+        steer.name = "Steer";
+        steer.subsystem = drivetrain;
+        steer.voltage = drivetrain::setSysIdSteerVoltage;
+        steer.appliedVoltage = drivetrain::getSysIdSteerAppliedVolts;
+        steer.position = drivetrain::getSysIdSteerPosition;
+        steer.velocity = drivetrain::getSysIdSteerVelocity;
+        steer.units = "Radians";
+        steer.stepVolts = 4.0;
+        steer.quasistaticTimeoutS = 6.0;
+        steer.dynamicTimeoutS = 2.0;
+        steer.characterizing = drivetrain::setSysIdCharacterizing;
+        add(steer);
+
+        add(flywheel("Left Flywheel", shooter, shooter.getLeftFlywheel()));
+        add(flywheel("Right Flywheel", shooter, shooter.getRightFlywheel()));
+
+        add(pivot("Shooter Pivot", shooter, shooter::setCharacterizing, shooter.getShooterPivot(),
+            ShooterConstants.SHOOTER_PIVOT_MAX_ROT.getRadians(), ShooterConstants.SHOOTER_PIVOT_HARDSTOP.getRadians()));
+        add(pivot("Amp Pivot", shooter, shooter::setCharacterizing, shooter.getShooterAmp(),
+            ShooterConstants.AMP_DEPLOYED.getRadians(), ShooterConstants.AMP_HARDSTOP.getRadians()));
+        add(pivot("Intake Pivot", intake, intake::setCharacterizing, intake.getPivot(),
+            IntakeConstants.INTAKING_POS.getRadians(), IntakeConstants.HARDSTOP_POS.getRadians()));
+
+        // not SysId, but it's a test mode drive routine too
+        chooser.addOption("Drive Mode Benchmark", new DriveModeBenchmark(drivetrain));
+
+        SmartDashboard.putData("SysId Routine", chooser);
+    }
+
+    public Command getSelected() {
+        return chooser.getSelected();
+    }
+
+    // flywheel position and velocity come in rotations and RPM
+    private static Test flywheel(String name, Shooter shooter, SteelTalonsSparkMaxStateSpaceFlywheel flywheel) {
+        Test test = new Test();
+        test.name = name;
+        test.subsystem = shooter;
+        test.voltage = flywheel::setVoltage;
+        test.appliedVoltage = flywheel::getAppliedVoltage;
+        test.position = flywheel::getPosition;
+        test.velocity = () -> flywheel.getVelocity() / 60.0;
+        test.units = "Rotations";
+        test.characterizing = shooter::setCharacterizing;
+        return test;
+    }
+
+    // pivots have little travel and fight gravity, ramp slowly and step small
+    private static Test pivot(String name, Subsystem subsystem, Consumer<Boolean> characterizing,
+                              SteelTalonsSparkMaxServo servo, double lowerLimitRad, double hardstopRad) {
+        Test test = new Test();
+        test.name = name;
+        test.subsystem = subsystem;
+        test.voltage = servo::setVoltage;
+        test.appliedVoltage = servo::getAppliedVoltage;
+        test.position = servo::getPosition;
+        test.velocity = servo::getVelocity;
+        test.units = "Radians";
+        test.rampVoltsPerSec = 0.5;
+        test.stepVolts = 2.0;
+        test.quasistaticTimeoutS = 6.0;
+        test.dynamicTimeoutS = 1.0;
+        test.minPosition = lowerLimitRad;
+        test.maxPosition = hardstopRad + HARDSTOP_MARGIN_RAD;
+        test.characterizing = characterizing;
+        return test;
+    }
+
+    private void add(Test test) {
+        String prefix = "SysId/" + test.name + "/";
+        int stateId = AsyncDataLogWriter.startString(prefix + "State");
+        int voltageId = AsyncDataLogWriter.startDouble(prefix + "Voltage (Volts)");
+        int positionId = AsyncDataLogWriter.startDouble(prefix + "Position (" + test.units + ")");
+        int velocityId = AsyncDataLogWriter.startDouble(prefix + "Velocity (" + test.units + " per Second)");
+
+        SysIdRoutine routine = new SysIdRoutine(
+            new SysIdRoutine.Config(
+                Volts.per(Second).of(test.rampVoltsPerSec), Volts.of(test.stepVolts), Seconds.of(test.quasistaticTimeoutS),
+                state -> AsyncDataLogWriter.appendString(stateId, state.toString())
+            ),
+            new SysIdRoutine.Mechanism(
+                volts -> test.voltage.accept(volts.in(Volts)),
+                log -> {
+                    AsyncDataLogWriter.appendDouble(voltageId, test.appliedVoltage.getAsDouble());
+                    AsyncDataLogWriter.appendDouble(positionId, test.position.getAsDouble());
+                    AsyncDataLogWriter.appendDouble(velocityId, test.velocity.getAsDouble());
+                },
+                test.subsystem, test.name
+            )
+        );
+
+        addOption(test, "Quasistatic Forward", routine.quasistatic(Direction.kForward));
+        addOption(test, "Quasistatic Reverse", routine.quasistatic(Direction.kReverse));
+        addOption(test, "Dynamic Forward", routine.dynamic(Direction.kForward).withTimeout(test.dynamicTimeoutS));
+        addOption(test, "Dynamic Reverse", routine.dynamic(Direction.kReverse).withTimeout(test.dynamicTimeoutS));
+    }
+
+    private void addOption(Test test, String kind, Command command) {
+        chooser.addOption(test.name + " " + kind, command
+            .until(() -> {
+                double position = test.position.getAsDouble();
+                return position < test.minPosition || position > test.maxPosition;
+            })
+            .beforeStarting(() -> test.characterizing.accept(true))
+            .finallyDo(() -> {
+                test.voltage.accept(0.0);
+                test.characterizing.accept(false);
+            })
+        );
+    }
+}
@@ -0,0 +1,101 @@
+package frc.robot.subsystems.Swerve;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+
+/**
+ * SquareSwerveKinematics has to give the same answers as the SwerveDriveKinematics it replaces,
+ * checked on random chassis speeds and module states in both directions.
+ */
+public class SquareSwerveKinematicsTest {
+    private static final int CASES = 10000;
+    private static final double TOLERANCE = 1e-9;
+    private static final double MAX_SPEED_M_S = 6.0;
+    private static final double MAX_OMEGA_RAD_S = 4.0 * Math.PI;
+    private static final int N = SquareSwerveKinematics.MODULES;
+
+    private static final SwerveDriveKinematics wpilib = DrivetrainConstants.SWERVE_DRIVE_KINEMATICS;
+    private static final SquareSwerveKinematics square = DrivetrainConstants.SQUARE_SWERVE_KINEMATICS;
+
+    private final double[] speedOut = new double[N];
+    private final double[] angleOut = new double[N];
+
+    @Test
+    public void toModuleStatesMatches() {
+        Random random = new Random(1678);
+        for (int c = 0; c < CASES; c++) {
+            assertForwardMatches(randomChassisSpeeds(random), c);
+        }
+    }
+
+    // all zero speeds keep the headings from the last real request instead of snapping to zero
+    @Test
+    public void zeroSpeedsKeepTheLastHeadings() {
+        Random random = new Random(254);
+        for (int c = 0; c < CASES / 10; c++) {
+            assertForwardMatches(randomChassisSpeeds(random), c);
+            assertForwardMatches(new ChassisSpeeds(), c);
+            for (int m = 0; m < N; m++) {
+                assertEquals(0.0, speedOut[m], "case " + c + " module " + m);
+            }
+        }
+    }
+
+    @Test
+    public void toChassisSpeedsMatches() {
+        Random random = new Random(1114);
+        SwerveModuleState[] states = new SwerveModuleState[N];
+        double[] moduleVx = new double[N];
+        double[] moduleVy = new double[N];
+        ChassisSpeeds fromStates = new ChassisSpeeds();
+        ChassisSpeeds fromVelocities = new ChassisSpeeds();
+        for (int c = 0; c < CASES; c++) {
+            for (int m = 0; m < N; m++) {
+                states[m] = new SwerveModuleState(
+                    (random.nextDouble() * 2 - 1) * MAX_SPEED_M_S,
+                    new Rotation2d((random.nextDouble() * 2 - 1) * Math.PI)
+                );
+                moduleVx[m] = states[m].speedMetersPerSecond * states[m].angle.getCos();
+                moduleVy[m] = states[m].speedMetersPerSecond * states[m].angle.getSin();
+            }
+            ChassisSpeeds expected = wpilib.toChassisSpeeds(states);
+            square.toChassisSpeeds(states, fromStates);
+            square.toChassisSpeeds(moduleVx, moduleVy, fromVelocities);
+            assertChassisEquals(expected, fromStates, c);
+            assertChassisEquals(expected, fromVelocities, c);
+        }
+    }
+
+    // runs the same request through both so their remembered headings stay in step
+    private void assertForwardMatches(ChassisSpeeds speeds, int c) {
+        SwerveModuleState[] expected = wpilib.toSwerveModuleStates(speeds);
+        square.toModuleStates(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond, speeds.omegaRadiansPerSecond, speedOut, angleOut);
+        for (int m = 0; m < N; m++) {
+            assertEquals(expected[m].speedMetersPerSecond, speedOut[m], TOLERANCE, "case " + c + " module " + m + " speed");
+            assertEquals(0.0, MathUtil.angleModulus(expected[m].angle.getRadians() - angleOut[m]), TOLERANCE, "case " + c + " module " + m + " angle");
+        }
+    }
+
+    private static void assertChassisEquals(ChassisSpeeds expected, ChassisSpeeds actual, int c) {
+        assertEquals(expected.vxMetersPerSecond, actual.vxMetersPerSecond, TOLERANCE, "case " + c + " vx");
+        assertEquals(expected.vyMetersPerSecond, actual.vyMetersPerSecond, TOLERANCE, "case " + c + " vy");
+        assertEquals(expected.omegaRadiansPerSecond, actual.omegaRadiansPerSecond, TOLERANCE, "case " + c + " omega");
+    }
+
+    private static ChassisSpeeds randomChassisSpeeds(Random random) {
+        return new ChassisSpeeds(
+            (random.nextDouble() * 2 - 1) * MAX_SPEED_M_S,
+            (random.nextDouble() * 2 - 1) * MAX_SPEED_M_S,
+            (random.nextDouble() * 2 - 1) * MAX_OMEGA_RAD_S
+        );
+    }
+}
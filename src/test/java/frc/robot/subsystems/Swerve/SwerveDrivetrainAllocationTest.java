@@ -0,0 +1,84 @@
+package frc.robot.subsystems.Swerve;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.sun.management.ThreadMXBean;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj.simulation.XboxControllerSim;
+import edu.wpi.first.wpilibj2.command.button.CommandXboxController;
+
+/**
+ * Runs the teleop drive path (controller read, periodic, setpoint generator, module requests) in
+ * simulation and checks that a warmed up tick allocates nothing on the robot thread.
+ */
+public class SwerveDrivetrainAllocationTest {
+    private static final int WARMUP_TICKS = 5000;
+    private static final int TICKS = 1000;
+
+    private static final ThreadMXBean bean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static SwerveDrivetrain drivetrain;
+    private static CommandXboxController controller;
+    private static XboxControllerSim controllerSim;
+
+    @BeforeAll
+    public static void setup() {
+        assertTrue(HAL.initialize(500, 0));
+        SimHooks.pauseTiming();
+        DriverStationSim.setAutonomous(false);
+        DriverStationSim.setTest(false);
+        DriverStationSim.setEnabled(true);
+        DriverStationSim.notifyNewData();
+
+        drivetrain = new SwerveDrivetrain();
+        controller = new CommandXboxController(0);
+        controllerSim = new XboxControllerSim(0);
+    }
+
+    @AfterAll
+    public static void resume() {
+        SimHooks.resumeTiming();
+    }
+
+    @Test
+    public void teleopTickAllocatesNothing() {
+        assumeTrue(bean.isThreadAllocatedMemorySupported());
+        bean.setThreadAllocatedMemoryEnabled(true);
+
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            tick(i);
+        }
+        long allocated = 0;
+        for (int i = 0; i < TICKS; i++) {
+            allocated += tick(WARMUP_TICKS + i);
+        }
+        assertEquals(0, allocated, "bytes allocated over " + TICKS + " drivetrain ticks");
+    }
+
+    // sticks sweep a circle so the generator, the cosine scaling and the steer feedforward all
+    // see changing setpoints. Returns what the drivetrain's own calls allocated
+    private static long tick(int i) {
+        double angle = i * 0.01;
+        controllerSim.setRightX(0.6 * Math.cos(angle));
+        controllerSim.setRightY(0.6 * Math.sin(angle));
+        controllerSim.setLeftX(0.3 * Math.sin(angle * 0.5));
+        DriverStationSim.notifyNewData();
+        SimHooks.stepTiming(TimedRobot.kDefaultPeriod);
+
+        long before = bean.getCurrentThreadAllocatedBytes();
+        drivetrain.setSetpoint(drivetrain.getDriveSpeeds(controller));
+        drivetrain.periodic();
+        return bean.getCurrentThreadAllocatedBytes() - before;
+    }
+}